@@ -0,0 +1,170 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.scijava.Context;
+import org.scijava.event.EventHandler;
+import org.scijava.event.EventService;
+import org.scijava.event.SciJavaEvent;
+
+/**
+ * Benchmarks {@link EventService#publish} and {@link EventService#publishLater}
+ * against a varying number of synthetic subscribers, to see how event delivery
+ * scales with the number of listeners, as diagnosed by {@link ShowSubscribers}.
+ * <p>
+ * Throughput and sampled latency are both reported; the default GC profiler of
+ * the benchmarks profile adds the allocation per event. The {@code contended}
+ * variants publish from one thread per CPU; for a finer sweep of publisher
+ * threads, run the single-threaded variants with JMH's {@code -t} option.
+ * </p>
+ * <p>
+ * Since {@link EventService#publishLater} only queues the event, publishers
+ * are held back once {@link #MAX_PENDING} events are awaiting delivery, so
+ * that the measured rate is a sustainable one, rather than that of filling an
+ * unbounded queue.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class EventBusBenchmark {
+
+	/** Maximum number of queued events awaiting asynchronous delivery. */
+	private static final int MAX_PENDING = 64;
+
+	@Param({ "1", "100", "10000" })
+	private int subscriberCount;
+
+	private Context context;
+	private EventService eventService;
+
+	/** Strong references to the subscribers, which are weakly referenced. */
+	private List<Subscriber> subscribers;
+
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+
+	@Setup
+	public void setUp() {
+		context = new Context(EventService.class);
+		eventService = context.service(EventService.class);
+		subscribers = new ArrayList<Subscriber>(subscriberCount);
+		for (int i = 0; i < subscriberCount; i++) {
+			// NB: The first subscriber counts the deliveries.
+			final Subscriber subscriber = new Subscriber(i == 0 ? delivered : null);
+			eventService.subscribe(subscriber);
+			subscribers.add(subscriber);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.dispose();
+	}
+
+	@Benchmark
+	public void publish() {
+		eventService.publish(new BenchmarkEvent());
+	}
+
+	@Benchmark
+	public void publishLater() {
+		while (published.get() - delivered.get() >= MAX_PENDING) {
+			Thread.yield();
+		}
+		published.incrementAndGet();
+		eventService.publishLater(new BenchmarkEvent());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public void publishContended() {
+		publish();
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public void publishLaterContended() {
+		publishLater();
+	}
+
+	// -- Helper classes --
+
+	/** The event published by the benchmarks. */
+	public static class BenchmarkEvent extends SciJavaEvent {
+		// NB: No implementation needed.
+	}
+
+	/** A synthetic subscriber, which does next to nothing with each event. */
+	public static class Subscriber {
+
+		private final AtomicLong deliveries;
+		private int count;
+
+		public Subscriber(final AtomicLong deliveries) {
+			this.deliveries = deliveries;
+		}
+
+		@EventHandler
+		public void onEvent(final BenchmarkEvent evt) {
+			count++;
+			if (deliveries != null) deliveries.incrementAndGet();
+		}
+
+		public int getCount() {
+			return count;
+		}
+	}
+
+}
@@ -0,0 +1,405 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.scijava.Context;
+import org.scijava.ItemIO;
+import org.scijava.app.StatusService;
+import org.scijava.command.Command;
+import org.scijava.log.LogService;
+import org.scijava.plugin.Attr;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.util.FileUtils;
+
+/**
+ * Reports every class and resource which appears in more than one class path
+ * element, as well as every library present in more than one version.
+ * <p>
+ * Unlike the version clash check of {@link SystemInformation}, which compares
+ * only Maven {@code groupId:artifactId} coordinates, this command indexes the
+ * actual contents of each JAR, so it also catches duplicates coming from
+ * shaded, relocated or unversioned JARs. Only the central directory of each
+ * JAR is read; nothing is extracted.
+ * </p>
+ * <p>
+ * Duplicates are grouped by the set of class path elements which contain
+ * them, listed in class path order, so the first element of each group is the
+ * one whose copy wins, and the others are shadowed.
+ * </p>
+ */
+@Plugin(type = Command.class, menuPath = "Plugins>Debug>Class Path Conflicts",
+	headless = true, attrs = { @Attr(name = "no-legacy") })
+public class ClassPathConflicts implements Command {
+
+	// -- Constants --
+
+	private static final String NL = System.getProperty("line.separator");
+
+	/** Maximum number of threads used to index class path elements. */
+	private static final int MAX_PARALLELISM = 8;
+
+	/** Entries which every JAR may legitimately have its own copy of. */
+	private static final Pattern IGNORED = Pattern.compile(
+		"META-INF/(MANIFEST\\.MF|INDEX\\.LIST|[^/]*\\.(SF|DSA|RSA|EC)|maven/.*)|" +
+			"(META-INF/versions/[0-9]+/)?module-info\\.class");
+
+	// -- Parameters --
+
+	@Parameter
+	private StatusService statusService;
+
+	@Parameter
+	private LogService log;
+
+	@Parameter(label = "Maximum entries listed per group", min = "0")
+	private int maxEntries = 10;
+
+	@Parameter(label = "Class Path Conflicts", type = ItemIO.OUTPUT)
+	private String conflicts;
+
+	// -- ClassPathConflicts methods --
+
+	public String getConflicts() {
+		return conflicts;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public void setMaxEntries(final int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		statusService.showStatus("Indexing class path");
+
+		final List<File> elements = getClassPath();
+		final List<String[]> contents = index(elements);
+
+		statusService.showStatus("Finding duplicates");
+
+		final List<Map.Entry<List<Integer>, List<String>>> groups =
+			groupDuplicates(contents);
+
+		// NB: Count each duplicated entry once, in its first owner.
+		int entryCount = 0, duplicateCount = 0;
+		for (final String[] names : contents) {
+			entryCount += names.length;
+		}
+		for (final Map.Entry<List<Integer>, List<String>> group : groups) {
+			final int names = group.getValue().size();
+			duplicateCount += names;
+			entryCount -= names * (group.getKey().size() - 1);
+		}
+
+		final StringBuilder sb = new StringBuilder();
+		sb.append("Indexed " + entryCount + " entries in " + elements.size() +
+			" class path elements; " + duplicateCount + " are duplicated in " +
+			groups.size() + " groups." + NL);
+
+		dumpVersionClashes(sb);
+
+		for (final Map.Entry<List<Integer>, List<String>> group : groups) {
+			dumpGroup(sb, elements, group.getKey(), group.getValue());
+		}
+
+		conflicts = sb.toString();
+
+		statusService.clearStatus();
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Gets the class path elements visible to the SciJava class loader, in the
+	 * order in which classes are looked up.
+	 */
+	private List<File> getClassPath() {
+		final LinkedHashMap<String, File> elements =
+			new LinkedHashMap<String, File>();
+
+		// NB: Class loaders delegate to their parent first.
+		final ClassLoader loader = Context.getClassLoader();
+		final ArrayList<ClassLoader> loaders = new ArrayList<ClassLoader>();
+		for (ClassLoader l = loader; l != null; l = l.getParent()) {
+			loaders.add(0, l);
+		}
+		final ClassLoader systemLoader = ClassLoader.getSystemClassLoader();
+		for (final ClassLoader l : loaders) {
+			if (l == systemLoader) {
+				final String classPath = System.getProperty("java.class.path");
+				if (classPath == null) continue;
+				for (final String path : classPath.split(File.pathSeparator)) {
+					if (!path.isEmpty()) addElement(elements, new File(path));
+				}
+			}
+			else if (l instanceof URLClassLoader) {
+				for (final URL url : ((URLClassLoader) l).getURLs()) {
+					addElement(elements, FileUtils.urlToFile(url));
+				}
+			}
+		}
+
+		// pick up JARs from any other kinds of class loaders via their manifests
+		try {
+			final Enumeration<URL> manifests =
+				loader.getResources("META-INF/MANIFEST.MF");
+			while (manifests.hasMoreElements()) {
+				final URL url = manifests.nextElement();
+				if (!"jar".equals(url.getProtocol())) continue;
+				addElement(elements, FileUtils.urlToFile(url));
+			}
+		}
+		catch (final IOException exc) {
+			log.debug(exc);
+		}
+
+		return new ArrayList<File>(elements.values());
+	}
+
+	private void addElement(final Map<String, File> elements, final File file) {
+		if (file == null || !file.exists()) return;
+		final String path = file.getAbsolutePath();
+		if (!elements.containsKey(path)) elements.put(path, file);
+	}
+
+	/** Lists the entries of the given class path elements, in parallel. */
+	private List<String[]> index(final List<File> elements) {
+		final int cpus = Runtime.getRuntime().availableProcessors();
+		final int parallelism = Math.max(1, Math.min(MAX_PARALLELISM, cpus));
+		final ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			final List<Future<String[]>> futures =
+				new ArrayList<Future<String[]>>(elements.size());
+			for (final File element : elements) {
+				futures.add(pool.submit(new Callable<String[]>() {
+
+					@Override
+					public String[] call() throws IOException {
+						return element.isDirectory() ? listDirectory(element)
+							: listArchive(element);
+					}
+				}));
+			}
+			final List<String[]> contents = new ArrayList<String[]>(futures.size());
+			for (int i = 0; i < futures.size(); i++) {
+				statusService.showProgress(i, futures.size());
+				try {
+					contents.add(futures.get(i).get());
+				}
+				catch (final ExecutionException exc) {
+					log.debug("Cannot index " + elements.get(i), exc.getCause());
+					contents.add(new String[0]);
+				}
+			}
+			return contents;
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			return Collections.emptyList();
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/** Lists the file entries of an archive, from its central directory. */
+	private static String[] listArchive(final File file) throws IOException {
+		final ArrayList<String> names = new ArrayList<String>();
+		try (final ZipFile zip = new ZipFile(file)) {
+			final Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				final ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory()) continue;
+				final String name = entry.getName();
+				if (IGNORED.matcher(name).matches()) continue;
+				names.add(name);
+			}
+		}
+		return names.toArray(new String[names.size()]);
+	}
+
+	/** Lists the files beneath a directory, as slash-separated paths. */
+	private static String[] listDirectory(final File dir) {
+		final ArrayList<String> names = new ArrayList<String>();
+		listDirectory(dir, "", names);
+		return names.toArray(new String[names.size()]);
+	}
+
+	private static void listDirectory(final File dir, final String prefix,
+		final List<String> names)
+	{
+		final File[] files = dir.listFiles();
+		if (files == null) return;
+		for (final File file : files) {
+			final String name = prefix + file.getName();
+			if (file.isDirectory()) listDirectory(file, name + "/", names);
+			else if (!IGNORED.matcher(name).matches()) names.add(name);
+		}
+	}
+
+	/**
+	 * Groups the entries found in more than one of the given class path
+	 * elements by the elements containing them.
+	 * 
+	 * @param contents The entries of each class path element, in class path
+	 *          order.
+	 * @return The groups, largest first, each keyed by the indices of its
+	 *         elements in class path order.
+	 */
+	static List<Map.Entry<List<Integer>, List<String>>> groupDuplicates(
+		final List<String[]> contents)
+	{
+		// map each entry to the class path elements containing it
+		final HashMap<String, Integer> firstOwners = new HashMap<String, Integer>();
+		final HashMap<String, List<Integer>> owners =
+			new HashMap<String, List<Integer>>();
+		for (int e = 0; e < contents.size(); e++) {
+			for (final String name : contents.get(e)) {
+				final Integer first = firstOwners.get(name);
+				if (first == null) {
+					firstOwners.put(name, e);
+					continue;
+				}
+				List<Integer> list = owners.get(name);
+				if (list == null) {
+					list = new ArrayList<Integer>();
+					list.add(first);
+					owners.put(name, list);
+				}
+				list.add(e);
+			}
+		}
+
+		// group the duplicated entries by their set of owners
+		final HashMap<List<Integer>, List<String>> groups =
+			new HashMap<List<Integer>, List<String>>();
+		for (final Map.Entry<String, List<Integer>> entry : owners.entrySet()) {
+			List<String> names = groups.get(entry.getValue());
+			if (names == null) {
+				names = new ArrayList<String>();
+				groups.put(entry.getValue(), names);
+			}
+			names.add(entry.getKey());
+		}
+
+		// sort groups by number of duplicates, largest first
+		final ArrayList<Map.Entry<List<Integer>, List<String>>> sortedGroups =
+			new ArrayList<Map.Entry<List<Integer>, List<String>>>(groups.entrySet());
+		Collections.sort(sortedGroups,
+			new Comparator<Map.Entry<List<Integer>, List<String>>>()
+			{
+
+				@Override
+				public int compare(final Map.Entry<List<Integer>, List<String>> g1,
+					final Map.Entry<List<Integer>, List<String>> g2)
+				{
+					final int c = g2.getValue().size() - g1.getValue().size();
+					if (c != 0) return c;
+					return g1.getKey().toString().compareTo(g2.getKey().toString());
+				}
+			});
+		return sortedGroups;
+	}
+
+	/** Lists every library present in more than one version. */
+	private void dumpVersionClashes(final StringBuilder sb) {
+		final LinkedHashMap<String, List<String>> versions =
+			new LinkedHashMap<String, List<String>>();
+		for (final LibraryInfo lib : LibraryScanner.getLibraries()) {
+			List<String> list = versions.get(lib.getGA());
+			if (list == null) {
+				list = new ArrayList<String>();
+				versions.put(lib.getGA(), list);
+			}
+			list.add(lib.getVersion());
+		}
+		for (final Map.Entry<String, List<String>> entry : versions.entrySet()) {
+			final List<String> list = entry.getValue();
+			if (list.size() < 2) continue;
+			sb.append("[WARNING] Version clash for " + entry.getKey() + ": " +
+				list.get(0) + " shadows " + list.subList(1, list.size()) + NL);
+		}
+	}
+
+	private void dumpGroup(final StringBuilder sb, final List<File> elements,
+		final List<Integer> owners, final List<String> names)
+	{
+		int classCount = 0;
+		for (final String name : names) {
+			if (name.endsWith(".class")) classCount++;
+		}
+		sb.append(NL);
+		final int resourceCount = names.size() - classCount;
+		sb.append("-- " + classCount + " classes and " + resourceCount +
+			" resources in " + owners.size() + " class path elements --" + NL);
+		for (int i = 0; i < owners.size(); i++) {
+			sb.append(i == 0 ? "active: " : "shadowed: ");
+			sb.append(elements.get(owners.get(i)) + NL);
+		}
+		if (maxEntries <= 0) return;
+		Collections.sort(names);
+		final int count = Math.min(maxEntries, names.size());
+		for (final String name : names.subList(0, count)) {
+			sb.append("\t" + name + NL);
+		}
+		if (names.size() > maxEntries) {
+			sb.append("\t... and " + (names.size() - maxEntries) + " more" + NL);
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.scijava.ItemIO;
+import org.scijava.command.Command;
+import org.scijava.command.ContextCommand;
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.widget.FileWidget;
+
+/**
+ * Compares the current system configuration against a baseline saved by
+ * {@link SaveSystemSnapshot}, reporting only what was added, removed or
+ * changed since then.
+ * <p>
+ * Only the sections present in the baseline are captured, and sections whose
+ * fingerprints still match are skipped entirely, so comparing an unchanged
+ * installation is cheap and produces a one-line report.
+ * </p>
+ */
+@Plugin(type = Command.class,
+	menuPath = "Plugins>Debug>Compare System Snapshot...", headless = true)
+public class CompareSystemSnapshot extends ContextCommand {
+
+	@Parameter
+	private LogService log;
+
+	@Parameter(label = "Baseline snapshot", style = FileWidget.OPEN_STYLE)
+	private File baselineFile;
+
+	@Parameter(label = "Differences", type = ItemIO.OUTPUT)
+	private String differences;
+
+	// -- CompareSystemSnapshot methods --
+
+	public String getDifferences() {
+		return differences;
+	}
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		final StringWriter out = new StringWriter();
+		try {
+			final SystemSnapshot baseline =
+				SystemSnapshot.load(baselineFile.toPath());
+			final SystemSnapshot current =
+				SystemSnapshot.capture(getContext(), baseline.getSections());
+			final int count = current.writeDiff(baseline, out);
+			differences = count + " difference(s) from " + baselineFile + out;
+		}
+		catch (final IOException exc) {
+			log.error(exc);
+			cancel(exc.getMessage());
+		}
+	}
+
+}
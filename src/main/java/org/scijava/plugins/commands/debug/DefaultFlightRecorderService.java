@@ -0,0 +1,314 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.scijava.event.EventHandler;
+import org.scijava.log.LogService;
+import org.scijava.module.Module;
+import org.scijava.module.event.ModuleCanceledEvent;
+import org.scijava.module.event.ModuleErroredEvent;
+import org.scijava.module.event.ModuleEvent;
+import org.scijava.module.event.ModuleExecutedEvent;
+import org.scijava.module.event.ModuleExecutingEvent;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.service.AbstractService;
+import org.scijava.service.Service;
+
+/**
+ * Default service for controlling Java Flight Recorder recordings.
+ * <p>
+ * Recordings are controlled through the JVM's {@code DiagnosticCommand}
+ * MBean, which offers the same operations as {@code jcmd}. The module
+ * execution event is defined at runtime using {@code jdk.jfr.EventFactory}
+ * (JDK 12 or later), since the JFR API is not part of Java 8; on older JVMs,
+ * recordings work but contain no module execution events.
+ * </p>
+ */
+@Plugin(type = Service.class)
+public class DefaultFlightRecorderService extends AbstractService implements
+	FlightRecorderService
+{
+
+	// -- Constants --
+
+	private static final String DIAGNOSTIC_COMMAND =
+		"com.sun.management:type=DiagnosticCommand";
+
+	// -- Parameters --
+
+	@Parameter(required = false)
+	private LogService log;
+
+	// -- Fields --
+
+	/** Factory of module execution events, or null if unsupported. */
+	private Object eventFactory;
+
+	private Method newEvent, beginEvent, endEvent, setField, commitEvent;
+
+	/** Events of the modules currently executing. */
+	private final Map<Module, Object> events =
+		new ConcurrentHashMap<Module, Object>();
+
+	// -- FlightRecorderService methods --
+
+	@Override
+	public boolean isAvailable() {
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			return server.isRegistered(new ObjectName(DIAGNOSTIC_COMMAND));
+		}
+		catch (final JMException exc) {
+			return false;
+		}
+	}
+
+	@Override
+	public String start(final String name, final String settings,
+		final File file) throws IOException
+	{
+		final List<String> args = new ArrayList<String>();
+		args.add(arg("name", name));
+		if (settings != null) args.add(arg("settings", settings));
+		if (file != null) args.add(arg("filename", file.getAbsolutePath()));
+		return diagnosticCommand("jfrStart", args);
+	}
+
+	@Override
+	public String stop(final String name, final File file) throws IOException {
+		final List<String> args = new ArrayList<String>();
+		args.add(arg("name", name));
+		if (file != null) args.add(arg("filename", file.getAbsolutePath()));
+		return diagnosticCommand("jfrStop", args);
+	}
+
+	@Override
+	public String dump(final String name, final File file) throws IOException {
+		return diagnosticCommand("jfrDump", Arrays.asList(arg("name", name),
+			arg("filename", file.getAbsolutePath())));
+	}
+
+	@Override
+	public String check() throws IOException {
+		return diagnosticCommand("jfrCheck", new ArrayList<String>());
+	}
+
+	// -- Service methods --
+
+	@Override
+	public void initialize() {
+		try {
+			createEventFactory();
+		}
+		catch (final ClassNotFoundException exc) {
+			// NB: No JFR event API (JDK 11 or earlier).
+		}
+		catch (final ReflectiveOperationException | RuntimeException exc) {
+			if (log != null) log.debug("Cannot define JFR event", exc);
+		}
+	}
+
+	// -- Event handlers --
+
+	@EventHandler
+	protected void onEvent(final ModuleExecutingEvent evt) {
+		if (eventFactory == null) return;
+		try {
+			final Object event = newEvent.invoke(eventFactory);
+			beginEvent.invoke(event);
+			events.put(evt.getModule(), event);
+		}
+		catch (final ReflectiveOperationException exc) {
+			if (log != null) log.debug(exc);
+		}
+	}
+
+	@EventHandler
+	protected void onEvent(final ModuleExecutedEvent evt) {
+		commit(evt, "completed", null);
+	}
+
+	@EventHandler
+	protected void onEvent(final ModuleCanceledEvent evt) {
+		commit(evt, "canceled", evt.getReason());
+	}
+
+	@EventHandler
+	protected void onEvent(final ModuleErroredEvent evt) {
+		final Throwable exc = evt.getException();
+		commit(evt, "errored", exc == null ? null : exc.toString());
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Formats a diagnostic command argument, quoting its value.
+	 * <p>
+	 * The JVM joins the arguments with spaces and parses the result again, so
+	 * unquoted values containing spaces, such as file paths, would be split.
+	 * Its parser has no escape character: a value is quoted with double quotes,
+	 * or with single quotes if it contains a double quote.
+	 * </p>
+	 * 
+	 * @throws IOException if the value contains both kinds of quote, and so
+	 *           cannot be passed to the JVM intact.
+	 */
+	private static String arg(final String key, final String value)
+		throws IOException
+	{
+		final char quote = value.indexOf('"') < 0 ? '"' : '\'';
+		if (value.indexOf(quote) >= 0) {
+			throw new IOException("Cannot pass both kinds of quote in " + key +
+				": " + value);
+		}
+		return key + "=" + quote + value + quote;
+	}
+
+	private String diagnosticCommand(final String operation,
+		final List<String> args) throws IOException
+	{
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final Object result = server.invoke(new ObjectName(DIAGNOSTIC_COMMAND),
+				operation, new Object[] { args.toArray(new String[args.size()]) },
+				new String[] { String[].class.getName() });
+			return result == null ? "" : result.toString().trim();
+		}
+		catch (final MBeanException exc) {
+			// NB: Report the JVM's own explanation, e.g. an unknown recording.
+			final Throwable cause = exc.getCause() == null ? exc : exc.getCause();
+			throw new IOException(cause.getMessage(), cause);
+		}
+		catch (final JMException exc) {
+			throw new IOException("Flight Recorder is not available: " + exc
+				.getMessage(), exc);
+		}
+	}
+
+	private void commit(final ModuleEvent evt, final String outcome,
+		final String message)
+	{
+		final Module module = evt.getModule();
+		final Object event = events.remove(module);
+		if (event == null) return;
+		// NB: Events are delivered on the dispatch thread, not the module's.
+		final Thread thread = evt.getCallingThread();
+		try {
+			endEvent.invoke(event);
+			setField.invoke(event, 0, module.getInfo().getDelegateClassName());
+			setField.invoke(event, 1, module.getInfo().getTitle());
+			setField.invoke(event, 2, thread == null ? null : thread.getName());
+			setField.invoke(event, 3, outcome);
+			setField.invoke(event, 4, message);
+			commitEvent.invoke(event);
+		}
+		catch (final ReflectiveOperationException exc) {
+			if (log != null) log.debug(exc);
+		}
+	}
+
+	/**
+	 * Defines the module execution event type, in the manner of:
+	 * 
+	 * <pre>
+	 * &#64;Name(COMMAND_EVENT)
+	 * &#64;Label("Command Execution")
+	 * &#64;Category("SciJava")
+	 * class CommandExecution extends Event {
+	 * 	&#64;Label("Class") String className;
+	 * 	&#64;Label("Title") String title;
+	 * 	&#64;Label("Thread") String thread;
+	 * 	&#64;Label("Outcome") String outcome;
+	 * 	&#64;Label("Message") String message;
+	 * }
+	 * </pre>
+	 */
+	private void createEventFactory() throws ReflectiveOperationException {
+		final ClassLoader loader = ClassLoader.getSystemClassLoader();
+		final Class<?> factoryClass = loader.loadClass("jdk.jfr.EventFactory");
+		final Class<?> eventClass = loader.loadClass("jdk.jfr.Event");
+		final Class<?> elementClass =
+			loader.loadClass("jdk.jfr.AnnotationElement");
+		final Class<?> descriptorClass =
+			loader.loadClass("jdk.jfr.ValueDescriptor");
+		final Class<?> nameClass = loader.loadClass("jdk.jfr.Name");
+		final Class<?> labelClass = loader.loadClass("jdk.jfr.Label");
+		final Class<?> categoryClass = loader.loadClass("jdk.jfr.Category");
+
+		final Constructor<?> element =
+			elementClass.getConstructor(Class.class, Object.class);
+		final List<Object> annotations = new ArrayList<Object>();
+		annotations.add(element.newInstance(nameClass, COMMAND_EVENT));
+		annotations.add(element.newInstance(labelClass, "Command Execution"));
+		annotations.add(element.newInstance(categoryClass,
+			new String[] { "SciJava" }));
+
+		final Constructor<?> descriptor = descriptorClass.getConstructor(
+			Class.class, String.class, List.class);
+		final List<Object> fields = new ArrayList<Object>();
+		final String[][] fieldLabels = { { "className", "Class" }, //
+			{ "title", "Title" }, { "thread", "Thread" }, //
+			{ "outcome", "Outcome" }, { "message", "Message" } };
+		for (final String[] fieldLabel : fieldLabels) {
+			fields.add(descriptor.newInstance(String.class, fieldLabel[0], Arrays
+				.asList(element.newInstance(labelClass, fieldLabel[1]))));
+		}
+
+		final Method create =
+			factoryClass.getMethod("create", List.class, List.class);
+		newEvent = factoryClass.getMethod("newEvent");
+		beginEvent = eventClass.getMethod("begin");
+		endEvent = eventClass.getMethod("end");
+		setField = eventClass.getMethod("set", int.class, Object.class);
+		commitEvent = eventClass.getMethod("commit");
+		// NB: The event type stays registered while the factory is reachable.
+		eventFactory = create.invoke(null, annotations, fields);
+	}
+
+}
@@ -69,6 +69,12 @@ public class DumpStack implements Command {
 	@Parameter(label = "Stack Dump", type = ItemIO.OUTPUT)
 	private String stackDump;
 
+	// -- DumpStack methods --
+
+	public String getStackDump() {
+		return stackDump;
+	}
+
 	// -- Runnable methods --
 
 	@Override
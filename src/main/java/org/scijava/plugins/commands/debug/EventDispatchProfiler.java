@@ -0,0 +1,405 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.scijava.Context;
+import org.scijava.event.DefaultEventBus;
+import org.scijava.event.DefaultEventService;
+import org.scijava.event.EventService;
+import org.scijava.event.EventSubscriber;
+import org.scijava.event.SciJavaEvent;
+import org.scijava.event.bushe.AbstractProxySubscriber;
+import org.scijava.log.LogService;
+import org.scijava.plugins.commands.util.Histogram;
+import org.scijava.thread.ThreadService;
+import org.scijava.util.VersionUtils;
+
+/**
+ * Measures how long each event subscriber takes to handle each type of event.
+ * <p>
+ * While profiling, the {@link DefaultEventService}'s event bus is temporarily
+ * replaced by one which delegates all subscriptions to the original bus, but
+ * times each subscriber as events are delivered. Subscriptions made or
+ * removed while profiling go to the original bus, so stopping the profiler
+ * leaves the subscribers exactly as they would otherwise be.
+ * </p>
+ * <p>
+ * The event service offers no public way to intercept delivery, so the bus is
+ * swapped by reflection on a private field. This is only attempted for the
+ * exact {@link DefaultEventService} of scijava-common
+ * {@value #SUPPORTED_VERSION}.x, whose internals were verified; in any other
+ * case, or if access is denied, {@link #start()} returns false and nothing is
+ * changed. Threads which are publishing while the bus is swapped may still
+ * use the other bus for a moment; since both buses deliver to the same
+ * subscribers, such events are delivered normally, just not timed.
+ * </p>
+ * <p>
+ * Latencies are kept in {@link Histogram}s, so reported percentiles are upper
+ * bounds within 25% of the true value; maximum and total times are exact.
+ * </p>
+ */
+public class EventDispatchProfiler {
+
+	// -- Constants --
+
+	private static final String NL = System.getProperty("line.separator");
+
+	/** Version of scijava-common whose event bus internals are supported. */
+	public static final String SUPPORTED_VERSION = "2.97";
+
+	// -- Fields --
+
+	private final EventService eventService;
+
+	/**
+	 * Timed wrappers by subscriber. Identity-based, since proxy subscribers
+	 * refuse to be hashed.
+	 */
+	private final Map<Object, TimedSubscriber> subscribers =
+		new IdentityHashMap<Object, TimedSubscriber>();
+
+	private Field eventBusField;
+	private DefaultEventBus originalBus;
+	private long startTime, stopTime;
+
+	public EventDispatchProfiler(final EventService eventService) {
+		this.eventService = eventService;
+	}
+
+	// -- EventDispatchProfiler methods --
+
+	/**
+	 * Gets whether event delivery of the given service can be profiled: it must
+	 * be the {@link DefaultEventService} of scijava-common
+	 * {@value #SUPPORTED_VERSION}.x.
+	 */
+	public static boolean isSupported(final EventService eventService) {
+		if (eventService == null) return false;
+		if (eventService.getClass() != DefaultEventService.class) return false;
+		final String version = VersionUtils.getVersion(DefaultEventService.class);
+		return version != null && (version.equals(SUPPORTED_VERSION) || version
+			.startsWith(SUPPORTED_VERSION + "."));
+	}
+
+	/**
+	 * Starts timing event delivery, discarding any earlier measurements.
+	 * 
+	 * @return false if the event service does not support profiling; see
+	 *         {@link #isSupported(EventService)}.
+	 */
+	public synchronized boolean start() {
+		if (originalBus != null) return true; // already started
+		if (!isSupported(eventService)) return false;
+		final Context context = ((DefaultEventService) eventService).getContext();
+		try {
+			eventBusField = DefaultEventService.class.getDeclaredField("eventBus");
+			if (eventBusField.getType() != DefaultEventBus.class) return false;
+			eventBusField.setAccessible(true);
+			originalBus = (DefaultEventBus) eventBusField.get(eventService);
+			final TimingEventBus timingBus = new TimingEventBus(context.getService(
+				ThreadService.class), context.getService(LogService.class));
+			synchronized (subscribers) {
+				subscribers.clear();
+			}
+			startTime = stopTime = System.nanoTime();
+			eventBusField.set(eventService, timingBus);
+			return true;
+		}
+		catch (final NoSuchFieldException | IllegalAccessException
+				| RuntimeException exc)
+		{
+			// NB: RuntimeException covers a SecurityException, or the
+			// InaccessibleObjectException of a module system denying access.
+			originalBus = null;
+			return false;
+		}
+	}
+
+	/** Stops timing event delivery, restoring the original event bus. */
+	public synchronized void stop() {
+		if (originalBus == null) return;
+		try {
+			eventBusField.set(eventService, originalBus);
+		}
+		catch (final IllegalAccessException exc) {
+			throw new IllegalStateException(exc);
+		}
+		stopTime = System.nanoTime();
+		originalBus = null;
+	}
+
+	/** Gets whether event delivery is currently being timed. */
+	public synchronized boolean isRunning() {
+		return originalBus != null;
+	}
+
+	/**
+	 * Gets the measurements so far, one per subscriber and event type, in
+	 * descending order of total time. Subscribers of the same class and method
+	 * are combined.
+	 */
+	public List<Measurement> getMeasurements() {
+		final Map<String, Measurement> merged = new TreeMap<String, Measurement>();
+		final List<TimedSubscriber> timedSubscribers;
+		synchronized (subscribers) {
+			timedSubscribers = new ArrayList<TimedSubscriber>(subscribers.values());
+		}
+		for (final TimedSubscriber subscriber : timedSubscribers) {
+			for (final Map.Entry<Class<?>, Measurement> entry : subscriber.latencies
+				.entrySet())
+			{
+				final Measurement m = entry.getValue();
+				final String key = m.getSubscriber() + " <- " + m.getEventType();
+				final Measurement total = merged.get(key);
+				if (total == null) {
+					final Measurement copy = new Measurement(m.subscriber, m.eventType);
+					copy.add(m);
+					merged.put(key, copy);
+				}
+				else total.add(m);
+			}
+		}
+		final List<Measurement> list = new ArrayList<Measurement>(merged.values());
+		Collections.sort(list, new Comparator<Measurement>() {
+
+			@Override
+			public int compare(final Measurement m1, final Measurement m2) {
+				return Long.compare(m2.getTotalNanos(), m1.getTotalNanos());
+			}
+		});
+		return list;
+	}
+
+	/** Writes the given number of costliest measurements as a table. */
+	public void writeReport(final Writer out, final int limit)
+		throws IOException
+	{
+		final List<Measurement> measurements = getMeasurements();
+		long deliveries = 0;
+		for (final Measurement m : measurements) {
+			deliveries += m.getCount();
+		}
+		final long end = isRunning() ? System.nanoTime() : stopTime;
+		out.write(String.format("%d deliveries to %d subscriber/event type " +
+			"pairs in %.1f s%s%s", deliveries, measurements.size(),
+			(end - startTime) / 1e9, NL, NL));
+		out.write(String.format("%10s %8s %9s %9s %9s  %s%s", "total ms",
+			"count", "p50 ms", "p99 ms", "max ms", "subscriber <- event type", NL));
+		for (int i = 0; i < measurements.size() && i < limit; i++) {
+			final Measurement m = measurements.get(i);
+			out.write(String.format("%10.3f %8d %9.3f %9.3f %9.3f  %s <- %s%s",
+				m.getTotalNanos() / 1e6, m.getCount(), m.getPercentile(0.5) / 1e6,
+				m.getPercentile(0.99) / 1e6, m.getMaxNanos() / 1e6, m
+					.getSubscriber(), m.getEventType(), NL));
+		}
+		out.flush();
+	}
+
+	// -- Helper classes --
+
+	/** Delivery latencies of one subscriber for one event type. */
+	public static class Measurement extends Histogram {
+
+		private final String subscriber;
+		private final String eventType;
+
+		private Measurement(final String subscriber, final String eventType) {
+			this.subscriber = subscriber;
+			this.eventType = eventType;
+		}
+
+		/** Gets the subscriber's class and method name. */
+		public String getSubscriber() {
+			return subscriber;
+		}
+
+		/** Gets the name of the event class delivered. */
+		public String getEventType() {
+			return eventType;
+		}
+
+		public long getTotalNanos() {
+			return getTotal();
+		}
+
+		public long getMaxNanos() {
+			return getMax();
+		}
+	}
+
+	/** Wraps a subscriber, timing each event it handles. */
+	private static class TimedSubscriber implements
+		EventSubscriber<SciJavaEvent>
+	{
+
+		private final org.scijava.event.bushe.EventSubscriber<Object> delegate;
+		private final String name;
+		private final ConcurrentMap<Class<?>, Measurement> latencies =
+			new ConcurrentHashMap<Class<?>, Measurement>();
+
+		@SuppressWarnings("unchecked")
+		private TimedSubscriber(final Object delegate) {
+			this.delegate =
+				(org.scijava.event.bushe.EventSubscriber<Object>) delegate;
+			name = describe(delegate);
+		}
+
+		@Override
+		public void onEvent(final SciJavaEvent event) {
+			final long start = System.nanoTime();
+			try {
+				delegate.onEvent(event);
+			}
+			finally {
+				final long elapsed = System.nanoTime() - start;
+				final Class<?> eventClass = event.getClass();
+				Measurement m = latencies.get(eventClass);
+				if (m == null) {
+					final Measurement newM =
+						new Measurement(name, eventClass.getName());
+					m = latencies.putIfAbsent(eventClass, newM);
+					if (m == null) m = newM;
+				}
+				m.record(elapsed);
+			}
+		}
+
+		@Override
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		public Class<SciJavaEvent> getEventClass() {
+			if (delegate instanceof EventSubscriber) {
+				return ((EventSubscriber) delegate).getEventClass();
+			}
+			return SciJavaEvent.class;
+		}
+
+		/** Describes the subscriber as the wrapped one does. */
+		@Override
+		public String toString() {
+			return delegate.toString();
+		}
+
+		private static String describe(final Object subscriber) {
+			if (subscriber instanceof AbstractProxySubscriber) {
+				final AbstractProxySubscriber proxy =
+					(AbstractProxySubscriber) subscriber;
+				final Object target = proxy.getProxiedSubscriber();
+				final String method = proxy.getSubscriptionMethod() == null ? "?"
+					: proxy.getSubscriptionMethod().getName();
+				return (target == null ? "?" : target.getClass().getName()) + "." +
+					method;
+			}
+			return subscriber.getClass().getName();
+		}
+	}
+
+	/**
+	 * An event bus which keeps no subscribers of its own: it delegates
+	 * subscriptions to the original bus, and wraps the original bus's
+	 * subscribers in {@link TimedSubscriber}s for delivery.
+	 */
+	// NB: ThreadSafeEventService overrides the generic getCachedEvents and
+	// getLastEvent methods of its interface with raw ones; unavoidable here.
+	@SuppressWarnings("unchecked")
+	private class TimingEventBus extends DefaultEventBus {
+
+		private final DefaultEventBus original = originalBus;
+
+		private TimingEventBus(final ThreadService threadService,
+			final LogService log)
+		{
+			super(threadService, log);
+		}
+
+		@Override
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		public <T> List<T> getSubscribers(final Class<T> eventClass) {
+			final List subs = original.getSubscribers(eventClass);
+			final List<Object> timed = new ArrayList<Object>(subs.size());
+			synchronized (subscribers) {
+				for (final Object sub : subs) {
+					TimedSubscriber t = subscribers.get(sub);
+					if (t == null) {
+						t = new TimedSubscriber(sub);
+						subscribers.put(sub, t);
+					}
+					timed.add(t);
+				}
+			}
+			return (List<T>) timed;
+		}
+
+		// NB: The bushe methods below are declared with raw types, and
+		// overriding them with parameterized ones would be a name clash.
+
+		@Override
+		@SuppressWarnings("rawtypes")
+		public boolean subscribe(final Class c,
+			final org.scijava.event.bushe.EventSubscriber subscriber)
+		{
+			return original.subscribe(c, subscriber);
+		}
+
+		@Override
+		@SuppressWarnings("rawtypes")
+		public boolean unsubscribe(final Class c,
+			final org.scijava.event.bushe.EventSubscriber subscriber)
+		{
+			return original.unsubscribe(c, subscriber);
+		}
+
+		@Override
+		@SuppressWarnings("rawtypes")
+		public boolean unsubscribe(final Class c, final Object subscriber) {
+			return original.unsubscribe(c, subscriber);
+		}
+
+		@Override
+		public void clearAllSubscribers() {
+			original.clearAllSubscribers();
+		}
+	}
+
+}
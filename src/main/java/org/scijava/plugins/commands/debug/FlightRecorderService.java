@@ -0,0 +1,88 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.scijava.service.SciJavaService;
+
+/**
+ * Interface for services that control Java Flight Recorder (JFR) recordings
+ * from inside the application, as {@code jcmd} would from outside it.
+ * <p>
+ * While a recording is running, each module (e.g., command) execution is
+ * recorded as a JFR event named {@value #COMMAND_EVENT}, with the module's
+ * class, its wall time, the thread it ran on, and its outcome.
+ * </p>
+ */
+public interface FlightRecorderService extends SciJavaService {
+
+	/** Name of the JFR event recorded for each module execution. */
+	String COMMAND_EVENT = "org.scijava.CommandExecution";
+
+	/** Gets whether this JVM can start flight recordings. */
+	boolean isAvailable();
+
+	/**
+	 * Starts a recording.
+	 * 
+	 * @param name The name of the recording.
+	 * @param settings The JFR settings to use, e.g. {@code default} or
+	 *          {@code profile}.
+	 * @param file The file to write when the recording is stopped, or null.
+	 * @return The JVM's response.
+	 * @throws IOException If the recording cannot be started.
+	 */
+	String start(String name, String settings, File file) throws IOException;
+
+	/**
+	 * Stops a recording, writing it to the given file, if any.
+	 * 
+	 * @return The JVM's response.
+	 * @throws IOException If there is no such recording.
+	 */
+	String stop(String name, File file) throws IOException;
+
+	/**
+	 * Writes the data recorded so far to the given file, without stopping the
+	 * recording.
+	 * 
+	 * @return The JVM's response.
+	 * @throws IOException If the recording cannot be written.
+	 */
+	String dump(String name, File file) throws IOException;
+
+	/** Describes the running recordings. */
+	String check() throws IOException;
+
+}
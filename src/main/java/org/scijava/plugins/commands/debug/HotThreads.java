@@ -0,0 +1,230 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.scijava.ItemIO;
+import org.scijava.command.Command;
+import org.scijava.command.ContextCommand;
+import org.scijava.plugin.Attr;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Lists the threads which used the most CPU time over an interval, with their
+ * current stacks.
+ * <p>
+ * The CPU time of every thread is read twice, the given interval apart, and
+ * the threads are ranked by the difference. Where the JVM supports it, each
+ * thread's allocation rate over the interval is shown too.
+ * </p>
+ */
+@Plugin(type = Command.class, menuPath = "Plugins>Debug>Hot Threads...",
+	headless = true, attrs = { @Attr(name = "no-legacy") })
+public class HotThreads extends ContextCommand {
+
+	// -- Constants --
+
+	private static final String NL = System.getProperty("line.separator");
+
+	// -- Parameters --
+
+	@Parameter(label = "Interval (ms)", min = "10")
+	private int interval = 500;
+
+	@Parameter(label = "Number of threads", min = "1")
+	private int count = 10;
+
+	@Parameter(label = "Stack depth", min = "1")
+	private int stackDepth = 20;
+
+	@Parameter(label = "Hot Threads", type = ItemIO.OUTPUT)
+	private String hotThreads;
+
+	// -- HotThreads methods --
+
+	public String getHotThreads() {
+		return hotThreads;
+	}
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!bean.isThreadCpuTimeSupported()) {
+			hotThreads = "Thread CPU time is not supported by this JVM.";
+			return;
+		}
+		final boolean wasEnabled = bean.isThreadCpuTimeEnabled();
+		if (!wasEnabled) bean.setThreadCpuTimeEnabled(true);
+		try {
+			hotThreads = measure(bean);
+		}
+		finally {
+			if (!wasEnabled) bean.setThreadCpuTimeEnabled(false);
+		}
+	}
+
+	// -- Helper methods --
+
+	private String measure(final ThreadMXBean bean) {
+		final com.sun.management.ThreadMXBean allocBean =
+			allocationBean(bean);
+
+		// first reading
+		final long start = System.nanoTime();
+		final long[] ids1 = bean.getAllThreadIds();
+		final Map<Long, long[]> before = read(bean, allocBean, ids1);
+
+		try {
+			Thread.sleep(interval);
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			cancel("Interrupted");
+			return null;
+		}
+
+		// second reading
+		final long[] ids2 = bean.getAllThreadIds();
+		final Map<Long, long[]> after = read(bean, allocBean, ids2);
+		final long elapsed = System.nanoTime() - start;
+
+		// rank by CPU time used in between
+		final List<long[]> deltas = new ArrayList<long[]>();
+		for (final Map.Entry<Long, long[]> entry : after.entrySet()) {
+			final long[] a = entry.getValue();
+			// NB: Threads started during the interval count from zero.
+			final long[] b = before.containsKey(entry.getKey()) ? before.get(entry
+				.getKey()) : new long[3];
+			final long alloc = a[2] < 0 ? -1 : a[2] - b[2];
+			deltas.add(new long[] { entry.getKey(), a[0] - b[0], a[1] - b[1],
+				alloc });
+		}
+		Collections.sort(deltas, new Comparator<long[]>() {
+
+			@Override
+			public int compare(final long[] d1, final long[] d2) {
+				return Long.compare(d2[1], d1[1]);
+			}
+		});
+		final List<long[]> top = deltas.subList(0, Math.min(count, deltas
+			.size()));
+
+		// current stacks of the hottest threads
+		final long[] topIds = new long[top.size()];
+		for (int i = 0; i < topIds.length; i++) {
+			topIds[i] = top.get(i)[0];
+		}
+		final ThreadInfo[] infos = bean.getThreadInfo(topIds, stackDepth);
+
+		final StringBuilder sb = new StringBuilder();
+		sb.append("Top " + top.size() + " of " + deltas.size() +
+			" threads by CPU time over " + millis(elapsed) + ":");
+		sb.append(NL);
+		sb.append(NL);
+		for (int i = 0; i < top.size(); i++) {
+			final long[] delta = top.get(i);
+			final ThreadInfo info = infos[i];
+			if (info == null) continue; // thread has terminated
+			final double percent = 100.0 * delta[1] / elapsed;
+			sb.append(String.format("%5.1f%% cpu (%s, user %s)", percent,
+				millis(delta[1]), millis(delta[2])));
+			if (delta[3] >= 0) {
+				final double bytesPerSecond = delta[3] * 1e9 / elapsed;
+				sb.append(String.format(", %.1f MiB/s allocated",
+					bytesPerSecond / (1024 * 1024)));
+			}
+			sb.append(" \"");
+			sb.append(info.getThreadName());
+			sb.append("\" id=");
+			sb.append(info.getThreadId());
+			sb.append(" ");
+			sb.append(info.getThreadState());
+			sb.append(NL);
+			for (final StackTraceElement element : info.getStackTrace()) {
+				sb.append("\tat ");
+				sb.append(element);
+				sb.append(NL);
+			}
+			sb.append(NL);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Reads the CPU time, user time and allocated bytes (or -1 if unavailable)
+	 * of each live thread.
+	 */
+	private static Map<Long, long[]> read(final ThreadMXBean bean,
+		final com.sun.management.ThreadMXBean allocBean, final long[] ids)
+	{
+		final long[] allocated = allocBean == null ? null : allocBean
+			.getThreadAllocatedBytes(ids);
+		final Map<Long, long[]> values = new HashMap<Long, long[]>();
+		for (int i = 0; i < ids.length; i++) {
+			final long cpu = bean.getThreadCpuTime(ids[i]);
+			if (cpu < 0) continue; // thread has terminated
+			final long user = bean.getThreadUserTime(ids[i]);
+			final long alloc = allocated == null ? -1 : allocated[i];
+			values.put(ids[i], new long[] { cpu, user, alloc });
+		}
+		return values;
+	}
+
+	/** Gets the bean for thread allocation counters, if enabled. */
+	private static com.sun.management.ThreadMXBean allocationBean(
+		final ThreadMXBean bean)
+	{
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+		final com.sun.management.ThreadMXBean allocBean =
+			(com.sun.management.ThreadMXBean) bean;
+		if (!allocBean.isThreadAllocatedMemorySupported()) return null;
+		if (!allocBean.isThreadAllocatedMemoryEnabled()) return null;
+		return allocBean;
+	}
+
+	private static String millis(final long nanos) {
+		return String.format("%.1f ms", nanos / 1e6);
+	}
+
+}
@@ -0,0 +1,228 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.scijava.MenuPath;
+import org.scijava.app.App;
+import org.scijava.plugin.PluginInfo;
+import org.scijava.plugins.commands.debug.SystemInformation.Section;
+import org.scijava.util.Manifest;
+
+/**
+ * Renders a {@link SystemInformation} report as JSON, written incrementally.
+ * <p>
+ * The document is a single object with a {@code summary} string, plus one key
+ * per included section: {@code applications} (array), {@code clashes} and
+ * {@code libraries} (arrays, for the libraries section), {@code plugins}
+ * (object mapping plugin type to array of plugins), and {@code properties},
+ * {@code environment} and {@code miscellany} (objects).
+ * </p>
+ */
+class JSONReportWriter implements ReportWriter {
+
+	private final JSONWriter json;
+
+	/** Whether the libraries section is still listing version clashes. */
+	private boolean inClashes;
+
+	public JSONReportWriter(final Writer out) {
+		json = new JSONWriter(out);
+	}
+
+	// -- ReportWriter methods --
+
+	@Override
+	public void start(final String summary) throws IOException {
+		json.beginObject();
+		json.property("summary", summary);
+	}
+
+	@Override
+	public void startSection(final Section section) throws IOException {
+		switch (section) {
+			case LIBRARIES:
+				json.name("clashes").beginArray();
+				inClashes = true;
+				break;
+			case PLUGINS:
+				json.name(section.getKey()).beginObject();
+				break;
+			case PROPERTIES:
+			case ENVIRONMENT:
+			case MISCELLANY:
+				// NB: The object itself is written by entries(Map).
+				json.name(section.getKey());
+				break;
+			default:
+				json.name(section.getKey()).beginArray();
+		}
+	}
+
+	@Override
+	public void application(final String name, final App app)
+		throws IOException
+	{
+		json.beginObject();
+		json.property("name", name);
+		json.property("title", app.getTitle());
+		json.property("version", app.getVersion());
+		json.property("groupId", app.getGroupId());
+		json.property("artifactId", app.getArtifactId());
+		final Manifest manifest = app.getManifest();
+		if (manifest != null) {
+			json.name("manifest");
+			entries(manifest.getAll());
+		}
+		json.endObject();
+	}
+
+	@Override
+	public void clash(final String ga, final String version,
+		final String shadowedVersion) throws IOException
+	{
+		json.beginObject();
+		json.property("ga", ga);
+		json.property("version", version);
+		json.property("shadows", shadowedVersion);
+		json.endObject();
+	}
+
+	@Override
+	public void library(final LibraryInfo lib, final String sourceRef)
+		throws IOException
+	{
+		endClashes();
+		json.beginObject();
+		json.property("title", lib.getTitle());
+		json.property("path", lib.getPath());
+		json.property("groupId", lib.getGroupId());
+		json.property("artifactId", lib.getArtifactId());
+		json.property("version", lib.getVersion());
+		json.property("projectURL", lib.getProjectURL());
+		json.property("inceptionYear", lib.getProjectInceptionYear());
+		json.property("organizationName", lib.getOrganizationName());
+		json.property("organizationURL", lib.getOrganizationURL());
+		json.property("scm", lib.getSCMConnection());
+		json.property("sourceRef", sourceRef);
+		json.endObject();
+	}
+
+	@Override
+	public void plugins(final Class<?> pluginType,
+		final List<? extends PluginInfo<?>> plugins) throws IOException
+	{
+		json.name(pluginType.getName()).beginArray();
+		for (final PluginInfo<?> plugin : plugins) {
+			json.beginObject();
+			json.property("class", plugin.getClassName());
+			json.property("name", plugin.getName());
+			json.property("label", plugin.getLabel());
+			final MenuPath menuPath = plugin.getMenuPath();
+			json.property("menu", menuPath == null || menuPath.isEmpty() ? null
+				: menuPath.getMenuString());
+			json.property("priority", plugin.getPriority());
+			json.property("enabled", plugin.isEnabled());
+			json.endObject();
+		}
+		json.endArray();
+	}
+
+	@Override
+	public void entries(final Map<?, ?> map) throws IOException {
+		// sort keys by string representation, as the text report does
+		final ArrayList<Object> keys = new ArrayList<Object>(map.keySet());
+		keys.remove(null);
+		Collections.sort(keys, new Comparator<Object>() {
+
+			@Override
+			public int compare(final Object o1, final Object o2) {
+				return o1.toString().compareTo(o2.toString());
+			}
+
+		});
+
+		json.beginObject();
+		for (final Object key : keys) {
+			final Object value = map.get(key);
+			json.property(key.toString(), value == null ? null : value.toString());
+		}
+		json.endObject();
+	}
+
+	@Override
+	public void endSection(final Section section) throws IOException {
+		switch (section) {
+			case LIBRARIES:
+				if (inClashes) {
+					// NB: No libraries were written; keep the key anyway.
+					endClashes();
+				}
+				json.endArray();
+				break;
+			case PLUGINS:
+				json.endObject();
+				break;
+			case PROPERTIES:
+			case ENVIRONMENT:
+			case MISCELLANY:
+				break;
+			default:
+				json.endArray();
+		}
+		json.flush();
+	}
+
+	@Override
+	public void end() throws IOException {
+		json.endObject();
+		json.flush();
+	}
+
+	// -- Helper methods --
+
+	/** Closes the clashes array and opens the libraries array, if needed. */
+	private void endClashes() throws IOException {
+		if (!inClashes) return;
+		json.endArray();
+		json.name(Section.LIBRARIES.getKey()).beginArray();
+		inClashes = false;
+	}
+
+}
@@ -0,0 +1,229 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Minimal streaming JSON writer.
+ * <p>
+ * Tokens are written straight through to the underlying {@link Writer} as they
+ * are emitted, so arbitrarily large documents can be produced with constant
+ * memory. Output is indented with one tab per nesting level.
+ * </p>
+ */
+public class JSONWriter implements Closeable, Flushable {
+
+	private final Writer out;
+
+	/** Whether the current object or array has no elements yet, per level. */
+	private final ArrayList<Boolean> empty = new ArrayList<Boolean>();
+
+	/** Whether a property name was just written, awaiting its value. */
+	private boolean named;
+
+	public JSONWriter(final Writer out) {
+		this.out = out;
+	}
+
+	// -- JSONWriter methods --
+
+	public JSONWriter beginObject() throws IOException {
+		return open('{');
+	}
+
+	public JSONWriter endObject() throws IOException {
+		return close('}');
+	}
+
+	public JSONWriter beginArray() throws IOException {
+		return open('[');
+	}
+
+	public JSONWriter endArray() throws IOException {
+		return close(']');
+	}
+
+	/** Writes the name of the next property of the current object. */
+	public JSONWriter name(final String name) throws IOException {
+		if (named) throw new IllegalStateException("Expected a value");
+		separate();
+		string(name);
+		out.write(": ");
+		named = true;
+		return this;
+	}
+
+	/** Writes a property of the current object. */
+	public JSONWriter property(final String name, final Object value)
+		throws IOException
+	{
+		return name(name).value(value);
+	}
+
+	/**
+	 * Writes the given value. {@link Map}s are written as objects, and
+	 * {@link Iterable}s and arrays as arrays; numbers and booleans are written
+	 * as such, and anything else as a string.
+	 */
+	public JSONWriter value(final Object value) throws IOException {
+		if (value instanceof Map) {
+			beginObject();
+			for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				property(String.valueOf(entry.getKey()), entry.getValue());
+			}
+			return endObject();
+		}
+		if (value instanceof Iterable) {
+			beginArray();
+			for (final Object element : (Iterable<?>) value) {
+				value(element);
+			}
+			return endArray();
+		}
+		if (value != null && value.getClass().isArray()) {
+			beginArray();
+			final int length = Array.getLength(value);
+			for (int i = 0; i < length; i++) {
+				value(Array.get(value, i));
+			}
+			return endArray();
+		}
+		separate();
+		if (value == null) out.write("null");
+		else if (value instanceof Boolean) out.write(value.toString());
+		else if (value instanceof Number) number((Number) value);
+		else string(value.toString());
+		return this;
+	}
+
+	// -- Closeable methods --
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	// -- Flushable methods --
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	// -- Helper methods --
+
+	private JSONWriter open(final char c) throws IOException {
+		separate();
+		out.write(c);
+		empty.add(true);
+		return this;
+	}
+
+	private JSONWriter close(final char c) throws IOException {
+		if (empty.isEmpty()) throw new IllegalStateException("Nothing to close");
+		final boolean wasEmpty = empty.remove(empty.size() - 1);
+		if (!wasEmpty) newline();
+		out.write(c);
+		if (empty.isEmpty()) out.write('\n');
+		return this;
+	}
+
+	/** Writes whatever must precede the next value or property name. */
+	private void separate() throws IOException {
+		if (named) {
+			// NB: The value directly follows its property name.
+			named = false;
+			return;
+		}
+		if (empty.isEmpty()) return;
+		final int last = empty.size() - 1;
+		if (empty.get(last)) empty.set(last, false);
+		else out.write(',');
+		newline();
+	}
+
+	private void newline() throws IOException {
+		out.write('\n');
+		for (int i = 0; i < empty.size(); i++) {
+			out.write('\t');
+		}
+	}
+
+	private void number(final Number n) throws IOException {
+		final double d = n.doubleValue();
+		if (Double.isNaN(d) || Double.isInfinite(d)) out.write("null");
+		else out.write(n.toString());
+	}
+
+	private void string(final String s) throws IOException {
+		out.write('"');
+		final int length = s.length();
+		for (int i = 0; i < length; i++) {
+			final char c = s.charAt(i);
+			switch (c) {
+				case '"':
+					out.write("\\\"");
+					break;
+				case '\\':
+					out.write("\\\\");
+					break;
+				case '\n':
+					out.write("\\n");
+					break;
+				case '\r':
+					out.write("\\r");
+					break;
+				case '\t':
+					out.write("\\t");
+					break;
+				case '\b':
+					out.write("\\b");
+					break;
+				case '\f':
+					out.write("\\f");
+					break;
+				default:
+					if (c < 0x20) out.write(String.format("\\u%04x", (int) c));
+					else out.write(c);
+			}
+		}
+		out.write('"');
+	}
+
+}
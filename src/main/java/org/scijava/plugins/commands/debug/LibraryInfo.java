@@ -0,0 +1,188 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import org.scijava.util.POM;
+
+/**
+ * Immutable summary of the Maven metadata of one library on the class path.
+ * <p>
+ * Unlike {@link POM}, this class does not retain the parsed XML document, so
+ * instances are cheap to cache across calls.
+ * </p>
+ * 
+ * @see LibraryScanner
+ */
+public class LibraryInfo implements Comparable<LibraryInfo> {
+
+	private final String path;
+	private final String groupId;
+	private final String artifactId;
+	private final String version;
+	private final String projectName;
+	private final String projectURL;
+	private final String inceptionYear;
+	private final String organizationName;
+	private final String organizationURL;
+	private final String scmConnection;
+	private final String scmTag;
+	private final String implementationBuild;
+
+	public LibraryInfo(final String path, final POM pom) {
+		this(path, pom, null);
+	}
+
+	/**
+	 * Creates a library summary from the given POM, together with the
+	 * {@code Implementation-Build} entry of the associated JAR manifest (if
+	 * any).
+	 */
+	public LibraryInfo(final String path, final POM pom,
+		final String implementationBuild)
+	{
+		this.path = path;
+		this.implementationBuild = implementationBuild;
+		groupId = pom.getGroupId();
+		artifactId = pom.getArtifactId();
+		version = pom.getVersion();
+		projectName = pom.getProjectName();
+		projectURL = pom.getProjectURL();
+		inceptionYear = pom.getProjectInceptionYear();
+		organizationName = pom.getOrganizationName();
+		organizationURL = pom.getOrganizationURL();
+		scmConnection = pom.cdata("//project/scm/connection");
+		scmTag = pom.cdata("//project/scm/tag");
+	}
+
+	// -- LibraryInfo methods --
+
+	/** Gets the path to the POM from which this metadata was extracted. */
+	public String getPath() {
+		return path;
+	}
+
+	public String getGroupId() {
+		return groupId;
+	}
+
+	public String getArtifactId() {
+		return artifactId;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public String getProjectName() {
+		return projectName;
+	}
+
+	public String getProjectURL() {
+		return projectURL;
+	}
+
+	public String getProjectInceptionYear() {
+		return inceptionYear;
+	}
+
+	public String getOrganizationName() {
+		return organizationName;
+	}
+
+	public String getOrganizationURL() {
+		return organizationURL;
+	}
+
+	public String getSCMConnection() {
+		return scmConnection;
+	}
+
+	public String getSCMTag() {
+		return scmTag;
+	}
+
+	/**
+	 * Gets the {@code Implementation-Build} entry of the manifest of the JAR
+	 * containing the POM, typically the commit hash the JAR was built from.
+	 * 
+	 * @return The build identifier, or null if the POM does not come from a JAR,
+	 *         or the JAR manifest has no such entry.
+	 */
+	public String getImplementationBuild() {
+		return implementationBuild;
+	}
+
+	/** Gets the {@code groupId:artifactId} coordinate of the library. */
+	public String getGA() {
+		return groupId + ":" + artifactId;
+	}
+
+	/**
+	 * Gets a human-readable title for the library: the project name if there is
+	 * one, or else the {@code groupId:artifactId} coordinate.
+	 */
+	public String getTitle() {
+		return projectName == null ? getGA() : projectName;
+	}
+
+	// -- Comparable methods --
+
+	/** Sorts by groupId, then artifactId, then version (as {@link POM} does). */
+	@Override
+	public int compareTo(final LibraryInfo that) {
+		final int gid = compare(groupId, that.groupId);
+		if (gid != 0) return gid;
+		final int aid = compare(artifactId, that.artifactId);
+		if (aid != 0) return aid;
+		if (version == null || that.version == null) {
+			return compare(version, that.version);
+		}
+		return POM.compareVersions(version, that.version);
+	}
+
+	// -- Object methods --
+
+	@Override
+	public String toString() {
+		return getGA() + ":" + version;
+	}
+
+	// -- Helper methods --
+
+	private static int compare(final String s1, final String s2) {
+		if (s1 == null && s2 == null) return 0;
+		if (s1 == null) return -1;
+		if (s2 == null) return 1;
+		return s1.compareTo(s2);
+	}
+
+}
@@ -0,0 +1,332 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.scijava.Context;
+import org.scijava.util.DigestUtils;
+import org.scijava.util.FileUtils;
+import org.scijava.util.POM;
+import org.xml.sax.SAXException;
+
+/**
+ * Scans the class path for Maven POMs, caching the results.
+ * <p>
+ * This is a faster alternative to {@link POM#getAllPOMs()}: the POMs are
+ * parsed in parallel using a bounded {@link ForkJoinPool}, and the extracted
+ * {@link LibraryInfo} list is reused for as long as the class path fingerprint
+ * (the path, size and modification time of every class path element which
+ * contains Maven metadata) stays the same.
+ * </p>
+ * <p>
+ * Each JAR is opened only once per scan: its POMs and its manifest's
+ * {@code Implementation-Build} entry are read together in a single pass. The
+ * results are also memoized per JAR, keyed on its path, size and modification
+ * time, so that when the class path changes only the affected JARs are read
+ * again.
+ * </p>
+ */
+public final class LibraryScanner {
+
+	// -- Constants --
+
+	private static final String MAVEN_PREFIX = "META-INF/maven/";
+
+	/** Maximum number of threads used to parse POMs. */
+	private static final int MAX_PARALLELISM = 8;
+
+	// -- Fields --
+
+	/** The most recent scan, or null if nothing has been scanned yet. */
+	private static volatile Scan lastScan;
+
+	/** Memoized results of reading individual JARs, keyed on JAR path. */
+	private static final ConcurrentHashMap<String, JarScan> jarScans =
+		new ConcurrentHashMap<String, JarScan>();
+
+	private LibraryScanner() {
+		// NB: Prevent instantiation of utility class.
+	}
+
+	// -- Utility methods --
+
+	/**
+	 * Gets the Maven metadata of all libraries on the class path, in class path
+	 * order. The POMs are only parsed again if the class path has changed since
+	 * the previous call.
+	 */
+	public static List<LibraryInfo> getLibraries() {
+		final List<URL> roots = getMavenRoots();
+		final String fingerprint = fingerprint(roots);
+		final Scan scan = lastScan;
+		if (scan != null && scan.fingerprint.equals(fingerprint)) {
+			return scan.libraries;
+		}
+		final List<LibraryInfo> libraries = scan(roots);
+		lastScan = new Scan(fingerprint, libraries);
+		pruneJarScans(roots);
+		return libraries;
+	}
+
+	/** Discards the cached scan, forcing the next call to parse all POMs. */
+	public static void clearCache() {
+		lastScan = null;
+		jarScans.clear();
+	}
+
+	// -- Helper methods --
+
+	/** Gets the {@code META-INF/maven/} folder of every class path element. */
+	private static List<URL> getMavenRoots() {
+		final ClassLoader loader = Context.getClassLoader();
+		try {
+			return Collections.list(loader.getResources(MAVEN_PREFIX));
+		}
+		catch (final IOException exc) {
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Computes a digest of the given class path elements' locations, sizes and
+	 * modification times. This is cheap: it touches only file metadata.
+	 */
+	private static String fingerprint(final List<URL> roots) {
+		final StringBuilder sb = new StringBuilder();
+		for (final URL root : roots) {
+			sb.append(root);
+			final File file = FileUtils.urlToFile(root);
+			if (file != null) {
+				sb.append('|').append(file.length());
+				sb.append('|').append(file.lastModified());
+			}
+			sb.append('\n');
+		}
+		final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+		return DigestUtils.hex(DigestUtils.sha1(bytes));
+	}
+
+	/** Forgets memoized JARs which are no longer on the class path. */
+	private static void pruneJarScans(final List<URL> roots) {
+		final HashSet<String> keys = new HashSet<String>();
+		for (final URL root : roots) {
+			final File file = FileUtils.urlToFile(root);
+			if (file != null) keys.add(file.getAbsolutePath());
+		}
+		jarScans.keySet().retainAll(keys);
+	}
+
+	/** Parses the POMs beneath the given roots, one task per root. */
+	private static List<LibraryInfo> scan(final List<URL> roots) {
+		final int cpus = Runtime.getRuntime().availableProcessors();
+		final int parallelism = Math.max(1, Math.min(MAX_PARALLELISM, cpus));
+		final ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			final List<Future<List<LibraryInfo>>> futures =
+				new ArrayList<Future<List<LibraryInfo>>>(roots.size());
+			for (final URL root : roots) {
+				futures.add(pool.submit(new Callable<List<LibraryInfo>>() {
+
+					@Override
+					public List<LibraryInfo> call() {
+						return scanRoot(root);
+					}
+				}));
+			}
+
+			// NB: Collect in submission order, to preserve class path order.
+			final List<LibraryInfo> libraries = new ArrayList<LibraryInfo>();
+			for (final Future<List<LibraryInfo>> future : futures) {
+				try {
+					libraries.addAll(future.get());
+				}
+				catch (final ExecutionException exc) {
+					// NB: Skip class path elements which cannot be read.
+				}
+			}
+			return Collections.unmodifiableList(libraries);
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			return Collections.emptyList();
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	private static List<LibraryInfo> scanRoot(final URL root) {
+		final File file = FileUtils.urlToFile(root);
+		final String path = root.getPath();
+		final int bang = path.indexOf("!/");
+		if (!"jar".equals(root.getProtocol()) || file == null || !file.isFile() ||
+			bang < 0 || path.indexOf("!/", bang + 2) >= 0)
+		{
+			// NB: Not a plain JAR file; e.g. a directory or a nested JAR.
+			return scanContents(root);
+		}
+
+		final String key = file.getAbsolutePath();
+		final long length = file.length();
+		final long lastModified = file.lastModified();
+		final JarScan cached = jarScans.get(key);
+		if (cached != null && cached.length == length &&
+			cached.lastModified == lastModified)
+		{
+			return cached.libraries;
+		}
+
+		final List<LibraryInfo> libraries;
+		try {
+			libraries = scanJar(file, path.substring(0, bang + 2));
+		}
+		catch (final IOException exc) {
+			// NB: Skip unreadable JARs, as POM.getAllPOMs() does.
+			return Collections.emptyList();
+		}
+		jarScans.put(key, new JarScan(length, lastModified, libraries));
+		return libraries;
+	}
+
+	/**
+	 * Reads the POMs and manifest of the given JAR file, opening it only once.
+	 * 
+	 * @param file The JAR file to read.
+	 * @param prefix The prefix for the paths of the JAR's POMs (e.g.,
+	 *          {@code file:/path/to/library.jar!/}), consistent with the paths
+	 *          reported by {@link POM#getPath()}.
+	 */
+	private static List<LibraryInfo> scanJar(final File file,
+		final String prefix) throws IOException
+	{
+		final List<LibraryInfo> libraries = new ArrayList<LibraryInfo>();
+		try (final JarFile jar = new JarFile(file)) {
+			final java.util.jar.Manifest manifest = jar.getManifest();
+			final String build = manifest == null ? null : manifest
+				.getMainAttributes().getValue("Implementation-Build");
+
+			// NB: Enumerating entries reads only the central directory.
+			final Enumeration<JarEntry> entries = jar.entries();
+			while (entries.hasMoreElements()) {
+				final JarEntry entry = entries.nextElement();
+				final String name = entry.getName();
+				if (!name.startsWith(MAVEN_PREFIX) || !name.endsWith("/pom.xml")) {
+					continue;
+				}
+				try (final InputStream in = jar.getInputStream(entry)) {
+					libraries.add(new LibraryInfo(prefix + name, new POM(in), build));
+				}
+				catch (final IOException exc) {
+					// NB: Skip unreadable POMs, as POM.getAllPOMs() does.
+				}
+				catch (final ParserConfigurationException exc) {
+					// NB: Skip unreadable POMs, as POM.getAllPOMs() does.
+				}
+				catch (final SAXException exc) {
+					// NB: Skip unreadable POMs, as POM.getAllPOMs() does.
+				}
+			}
+		}
+		return libraries;
+	}
+
+	/** Reads the POMs beneath the given root URL, one resource at a time. */
+	private static List<LibraryInfo> scanContents(final URL root) {
+		final List<LibraryInfo> libraries = new ArrayList<LibraryInfo>();
+		for (final URL url : FileUtils.listContents(root)) {
+			if (!url.getPath().endsWith("/pom.xml")) continue;
+			try {
+				libraries.add(new LibraryInfo(url.getPath(), new POM(url)));
+			}
+			catch (final IOException exc) {
+				// NB: Skip unreadable POMs, as POM.getAllPOMs() does.
+			}
+			catch (final ParserConfigurationException exc) {
+				// NB: Skip unreadable POMs, as POM.getAllPOMs() does.
+			}
+			catch (final SAXException exc) {
+				// NB: Skip unreadable POMs, as POM.getAllPOMs() does.
+			}
+		}
+		return libraries;
+	}
+
+	// -- Helper classes --
+
+	/** The result of reading one JAR, together with its size and timestamp. */
+	private static class JarScan {
+
+		private final long length;
+		private final long lastModified;
+		private final List<LibraryInfo> libraries;
+
+		private JarScan(final long length, final long lastModified,
+			final List<LibraryInfo> libraries)
+		{
+			this.length = length;
+			this.lastModified = lastModified;
+			this.libraries = libraries;
+		}
+	}
+
+	/** The result of a class path scan, together with its fingerprint. */
+	private static class Scan {
+
+		private final String fingerprint;
+		private final List<LibraryInfo> libraries;
+
+		private Scan(final String fingerprint, final List<LibraryInfo> libraries) {
+			this.fingerprint = fingerprint;
+			this.libraries = libraries;
+		}
+	}
+
+}
@@ -0,0 +1,326 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.scijava.ItemIO;
+import org.scijava.command.Command;
+import org.scijava.plugin.Attr;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Reports JVM performance counters: memory use per pool, garbage collection
+ * counts and times, JIT compilation time, code cache use, class loading
+ * counts, and direct and mapped buffer pools.
+ * <p>
+ * All values come from the platform MXBeans, so no external tools need to be
+ * attached. The snapshot is available as text (the command's output) and as
+ * structured data ({@link #getData()}, or {@link #writeJSON(Writer)}).
+ * </p>
+ */
+@Plugin(type = Command.class, menuPath = "Plugins>Debug>Performance Snapshot",
+	headless = true, attrs = { @Attr(name = "no-legacy") })
+public class PerformanceSnapshot implements Command {
+
+	// -- Constants --
+
+	private static final String NL = System.getProperty("line.separator");
+
+	// -- Parameters --
+
+	@Parameter(label = "Performance Snapshot", type = ItemIO.OUTPUT)
+	private String snapshot;
+
+	// -- Fields --
+
+	private Map<String, Object> data;
+
+	// -- PerformanceSnapshot methods --
+
+	/** Gets the snapshot produced by the most recent {@link #run()}, as text. */
+	public String getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Gets the snapshot produced by the most recent {@link #run()}, as nested
+	 * maps and lists keyed by stable names. Sizes are in bytes and times in
+	 * milliseconds. Before the command runs, this is null.
+	 */
+	public Map<String, Object> getData() {
+		return data;
+	}
+
+	/**
+	 * Writes the snapshot produced by the most recent {@link #run()} to the
+	 * given writer, as JSON.
+	 * 
+	 * @throws IllegalStateException if the command has not been run yet.
+	 */
+	public void writeJSON(final Writer out) throws IOException {
+		if (data == null) throw new IllegalStateException("No snapshot yet");
+		new JSONWriter(out).value(data).flush();
+	}
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		data = collect();
+		snapshot = format(data);
+	}
+
+	// -- Utility methods --
+
+	/** Reads the current values of the platform MXBeans. */
+	public static Map<String, Object> collect() {
+		final LinkedHashMap<String, Object> data =
+			new LinkedHashMap<String, Object>();
+		data.put("uptime", ManagementFactory.getRuntimeMXBean().getUptime());
+
+		// memory
+
+		final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		data.put("heap", usage(memory.getHeapMemoryUsage()));
+		data.put("nonHeap", usage(memory.getNonHeapMemoryUsage()));
+
+		final List<Map<String, Object>> pools =
+			new ArrayList<Map<String, Object>>();
+		long codeUsed = 0, codeCommitted = 0, codeMax = 0;
+		for (final MemoryPoolMXBean pool : ManagementFactory
+			.getMemoryPoolMXBeans())
+		{
+			final MemoryUsage usage = pool.getUsage();
+			if (usage == null) continue; // pool is no longer valid
+			final LinkedHashMap<String, Object> poolData =
+				new LinkedHashMap<String, Object>();
+			poolData.put("name", pool.getName());
+			poolData.put("type", pool.getType().name());
+			poolData.putAll(usage(usage));
+			final MemoryUsage peak = pool.getPeakUsage();
+			if (peak != null) poolData.put("peakUsed", peak.getUsed());
+			pools.add(poolData);
+
+			if (isCodeCache(pool.getName())) {
+				codeUsed += usage.getUsed();
+				codeCommitted += usage.getCommitted();
+				if (codeMax >= 0) {
+					codeMax = usage.getMax() < 0 ? -1 : codeMax + usage.getMax();
+				}
+			}
+		}
+		data.put("memoryPools", pools);
+
+		final LinkedHashMap<String, Object> codeCache =
+			new LinkedHashMap<String, Object>();
+		codeCache.put("used", codeUsed);
+		codeCache.put("committed", codeCommitted);
+		codeCache.put("max", codeMax);
+		data.put("codeCache", codeCache);
+
+		// garbage collection
+
+		final List<Map<String, Object>> collectors =
+			new ArrayList<Map<String, Object>>();
+		for (final GarbageCollectorMXBean gc : ManagementFactory
+			.getGarbageCollectorMXBeans())
+		{
+			final LinkedHashMap<String, Object> gcData =
+				new LinkedHashMap<String, Object>();
+			gcData.put("name", gc.getName());
+			gcData.put("count", gc.getCollectionCount());
+			gcData.put("time", gc.getCollectionTime());
+			collectors.add(gcData);
+		}
+		data.put("garbageCollectors", collectors);
+
+		// JIT compilation
+
+		final CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+		if (jit != null) {
+			final LinkedHashMap<String, Object> jitData =
+				new LinkedHashMap<String, Object>();
+			jitData.put("name", jit.getName());
+			final boolean timed = jit.isCompilationTimeMonitoringSupported();
+			jitData.put("time", timed ? jit.getTotalCompilationTime() : -1L);
+			data.put("compilation", jitData);
+		}
+
+		// class loading
+
+		final ClassLoadingMXBean classes =
+			ManagementFactory.getClassLoadingMXBean();
+		final LinkedHashMap<String, Object> classData =
+			new LinkedHashMap<String, Object>();
+		classData.put("loaded", classes.getLoadedClassCount());
+		classData.put("totalLoaded", classes.getTotalLoadedClassCount());
+		classData.put("unloaded", classes.getUnloadedClassCount());
+		data.put("classLoading", classData);
+
+		// direct and mapped buffers
+
+		final List<Map<String, Object>> buffers =
+			new ArrayList<Map<String, Object>>();
+		for (final BufferPoolMXBean pool : ManagementFactory
+			.getPlatformMXBeans(BufferPoolMXBean.class))
+		{
+			final LinkedHashMap<String, Object> poolData =
+				new LinkedHashMap<String, Object>();
+			poolData.put("name", pool.getName());
+			poolData.put("count", pool.getCount());
+			poolData.put("capacity", pool.getTotalCapacity());
+			poolData.put("used", pool.getMemoryUsed());
+			buffers.add(poolData);
+		}
+		data.put("bufferPools", buffers);
+
+		return data;
+	}
+
+	/** Renders data produced by {@link #collect()} as human-readable text. */
+	@SuppressWarnings("unchecked")
+	public static String format(final Map<String, Object> data) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("Uptime = " + data.get("uptime") + " ms" + NL);
+
+		sb.append(NL);
+		sb.append("-- Memory --" + NL);
+		usageLine(sb, "Heap", (Map<String, Object>) data.get("heap"));
+		usageLine(sb, "Non-heap", (Map<String, Object>) data.get("nonHeap"));
+		usageLine(sb, "Code cache", (Map<String, Object>) data.get("codeCache"));
+
+		sb.append(NL);
+		sb.append("-- Memory pools --" + NL);
+		for (final Map<String, Object> pool : (List<Map<String, Object>>) data
+			.get("memoryPools"))
+		{
+			usageLine(sb, pool.get("name") + " (" + pool.get("type") + ")", pool);
+		}
+
+		sb.append(NL);
+		sb.append("-- Garbage collectors --" + NL);
+		for (final Map<String, Object> gc : (List<Map<String, Object>>) data.get(
+			"garbageCollectors"))
+		{
+			sb.append(gc.get("name") + ": collections = " + gc.get("count") +
+				", time = " + gc.get("time") + " ms" + NL);
+		}
+
+		final Map<String, Object> jit =
+			(Map<String, Object>) data.get("compilation");
+		if (jit != null) {
+			sb.append(NL);
+			sb.append("-- JIT compilation --" + NL);
+			sb.append(jit.get("name") + ": time = " + jit.get("time") + " ms" + NL);
+		}
+
+		final Map<String, Object> classes =
+			(Map<String, Object>) data.get("classLoading");
+		sb.append(NL);
+		sb.append("-- Class loading --" + NL);
+		sb.append("loaded = " + classes.get("loaded") + NL);
+		sb.append("total loaded = " + classes.get("totalLoaded") + NL);
+		sb.append("unloaded = " + classes.get("unloaded") + NL);
+
+		sb.append(NL);
+		sb.append("-- Buffer pools --" + NL);
+		for (final Map<String, Object> pool : (List<Map<String, Object>>) data
+			.get("bufferPools"))
+		{
+			sb.append(pool.get("name") + ": count = " + pool.get("count") +
+				", capacity = " + bytes(pool.get("capacity")) + ", used = " +
+				bytes(pool.get("used")) + NL);
+		}
+
+		return sb.toString();
+	}
+
+	// -- Helper methods --
+
+	private static Map<String, Object> usage(final MemoryUsage usage) {
+		final LinkedHashMap<String, Object> data =
+			new LinkedHashMap<String, Object>();
+		data.put("used", usage.getUsed());
+		data.put("committed", usage.getCommitted());
+		data.put("max", usage.getMax());
+		return data;
+	}
+
+	private static boolean isCodeCache(final String poolName) {
+		// NB: "Code Cache" before Java 9; "CodeHeap '...'" since then.
+		return poolName.startsWith("Code Cache") ||
+			poolName.startsWith("CodeHeap");
+	}
+
+	private static void usageLine(final StringBuilder sb, final String label,
+		final Map<String, Object> usage)
+	{
+		sb.append(label + ": used = " + bytes(usage.get("used")) +
+			", committed = " + bytes(usage.get("committed")) + ", max = " +
+			bytes(usage.get("max")));
+		if (usage.containsKey("peakUsed")) {
+			sb.append(", peak = " + bytes(usage.get("peakUsed")));
+		}
+		sb.append(NL);
+	}
+
+	/** Formats a byte count in binary units, or "n/a" if undefined. */
+	private static String bytes(final Object value) {
+		final long bytes = ((Number) value).longValue();
+		if (bytes < 0) return "n/a";
+		if (bytes < 1024) return bytes + " B";
+		final String[] units = { "KiB", "MiB", "GiB", "TiB" };
+		double v = bytes;
+		int u = -1;
+		while (v >= 1024 && u < units.length - 1) {
+			v /= 1024;
+			u++;
+		}
+		return String.format("%.1f %s", v, units[u]);
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.scijava.plugin.PluginIndex;
+import org.scijava.plugin.PluginInfo;
+import org.scijava.plugin.SciJavaPlugin;
+import org.scijava.util.ClassUtils;
+
+/**
+ * A snapshot of the available plugins, grouped by plugin type.
+ * <p>
+ * The grouping is computed in a single pass over {@link PluginIndex#getAll()},
+ * rather than by querying the index once per plugin type. Diagnostics which
+ * need the plugins of several types should build one inventory and reuse it.
+ * </p>
+ */
+public class PluginInventory {
+
+	/** Plugins keyed by exact plugin type, sorted by type name. */
+	private final Map<Class<? extends SciJavaPlugin>, List<PluginInfo<?>>> plugins;
+
+	private final int pluginCount;
+
+	public PluginInventory(final PluginIndex pluginIndex) {
+		final List<PluginInfo<?>> all = pluginIndex.getAll();
+
+		// group plugins by type; index order is preserved within each group
+		final Map<Class<? extends SciJavaPlugin>, List<PluginInfo<?>>> groups =
+			new LinkedHashMap<Class<? extends SciJavaPlugin>, List<PluginInfo<?>>>();
+		for (final PluginInfo<?> plugin : all) {
+			final Class<? extends SciJavaPlugin> pluginType = plugin.getPluginType();
+			List<PluginInfo<?>> group = groups.get(pluginType);
+			if (group == null) {
+				group = new ArrayList<PluginInfo<?>>();
+				groups.put(pluginType, group);
+			}
+			group.add(plugin);
+		}
+
+		// sort plugin types by fully qualified class name
+		final ArrayList<Class<? extends SciJavaPlugin>> pluginTypes =
+			new ArrayList<Class<? extends SciJavaPlugin>>(groups.keySet());
+		Collections.sort(pluginTypes, new Comparator<Class<?>>() {
+
+			@Override
+			public int compare(final Class<?> c1, final Class<?> c2) {
+				return ClassUtils.compare(c1, c2);
+			}
+
+		});
+
+		plugins =
+			new LinkedHashMap<Class<? extends SciJavaPlugin>, List<PluginInfo<?>>>();
+		for (final Class<? extends SciJavaPlugin> pluginType : pluginTypes) {
+			final List<PluginInfo<?>> group = groups.get(pluginType);
+			plugins.put(pluginType, Collections.unmodifiableList(group));
+		}
+		pluginCount = all.size();
+	}
+
+	// -- PluginInventory methods --
+
+	/** Gets the plugin types with at least one plugin, sorted by name. */
+	public List<Class<? extends SciJavaPlugin>> getPluginTypes() {
+		return Collections.unmodifiableList(
+			new ArrayList<Class<? extends SciJavaPlugin>>(plugins.keySet()));
+	}
+
+	/**
+	 * Gets the plugins whose plugin type is exactly the given one (i.e., not
+	 * including plugins of sub-types).
+	 */
+	public List<PluginInfo<?>> getPlugins(final Class<?> pluginType) {
+		final List<PluginInfo<?>> group = plugins.get(pluginType);
+		if (group == null) return Collections.emptyList();
+		return group;
+	}
+
+	/** Gets all plugin groups, keyed by plugin type, sorted by type name. */
+	public Map<Class<? extends SciJavaPlugin>, List<PluginInfo<?>>> asMap() {
+		return Collections.unmodifiableMap(plugins);
+	}
+
+	/** Gets the total number of plugins in the inventory. */
+	public int getPluginCount() {
+		return pluginCount;
+	}
+
+}
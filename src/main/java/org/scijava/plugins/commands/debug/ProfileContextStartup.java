@@ -0,0 +1,216 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.scijava.ItemIO;
+import org.scijava.command.Command;
+import org.scijava.command.ContextCommand;
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.thread.ThreadService;
+import org.scijava.util.FileUtils;
+import org.scijava.widget.FileWidget;
+
+/**
+ * Reports how long each service and plugin type takes to initialize, and
+ * which services each command pulls in, by starting a context in a separate,
+ * headless JVM with the same class path. See {@link StartupProfile} for
+ * details.
+ * <p>
+ * Using a separate JVM measures a cold start, and keeps the profiled context's
+ * services, listeners and threads out of the running application. If the
+ * profiling JVM does not finish within {@value #TIMEOUT} seconds, or the
+ * command is canceled, it is killed.
+ * </p>
+ * <p>
+ * Optionally, the profile is also saved as a trace file, for viewing in a
+ * trace viewer.
+ * </p>
+ */
+@Plugin(type = Command.class,
+	menuPath = "Plugins>Debug>Profile Context Startup...", headless = true)
+public class ProfileContextStartup extends ContextCommand {
+
+	// -- Constants --
+
+	/** Seconds after which the profiling JVM is given up on. */
+	public static final int TIMEOUT = 120;
+
+	/** Milliseconds between checks for cancellation. */
+	private static final long POLL_INTERVAL = 250;
+
+	// -- Parameters --
+
+	@Parameter
+	private LogService log;
+
+	@Parameter
+	private ThreadService threadService;
+
+	@Parameter(label = "Trace file", style = FileWidget.SAVE_STYLE,
+		required = false)
+	private File traceFile;
+
+	@Parameter(label = "Startup Profile", type = ItemIO.OUTPUT)
+	private String profile;
+
+	// -- ProfileContextStartup methods --
+
+	public String getProfile() {
+		return profile;
+	}
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		final List<String> command = new ArrayList<String>();
+		command.add(new File(new File(System.getProperty("java.home"), "bin"),
+			"java").getPath());
+		command.add("-Djava.awt.headless=true");
+		command.add("-cp");
+		command.add(classPath());
+		command.add(StartupProfile.class.getName());
+		if (traceFile != null) command.add(traceFile.getAbsolutePath());
+
+		Process process = null;
+		try {
+			process = new ProcessBuilder(command).redirectError(
+				ProcessBuilder.Redirect.INHERIT).start();
+			// NB: Read the output on another thread, so that the child can never
+			// block on a full pipe, and this one can watch the clock.
+			final Future<String> output = threadService.run(read(process));
+			final long deadline = System.currentTimeMillis() + TIMEOUT * 1000L;
+			while (!process.waitFor(POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+				if (isCanceled()) return;
+				if (System.currentTimeMillis() >= deadline) {
+					cancel("The profiling JVM did not finish within " + TIMEOUT +
+						" s");
+					return;
+				}
+			}
+			final int status = process.exitValue();
+			if (status != 0) {
+				cancel("The profiling JVM failed with exit status " + status);
+				return;
+			}
+			profile = output.get();
+		}
+		catch (final IOException exc) {
+			log.error(exc);
+			cancel(exc.getMessage());
+		}
+		catch (final ExecutionException exc) {
+			log.error(exc.getCause());
+			cancel(exc.getCause().getMessage());
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			cancel("Interrupted");
+		}
+		finally {
+			if (process != null) process.destroyForcibly();
+		}
+	}
+
+	// -- Helper methods --
+
+	/** Reads the given process's standard output until it ends. */
+	private static Callable<String> read(final Process process) {
+		return new Callable<String>() {
+
+			@Override
+			public String call() throws IOException {
+				final StringBuilder sb = new StringBuilder();
+				try (final BufferedReader in = new BufferedReader(
+					new InputStreamReader(process.getInputStream(), Charset
+						.defaultCharset())))
+				{
+					final char[] buf = new char[8192];
+					while (true) {
+						final int n = in.read(buf);
+						if (n < 0) break;
+						sb.append(buf, 0, n);
+					}
+				}
+				return sb.toString();
+			}
+		};
+	}
+
+	/**
+	 * Gets the class path of this JVM, plus the URLs of the class loader of
+	 * this class, in case the application adds its plugins at runtime.
+	 */
+	private static String classPath() {
+		final Set<String> entries = new LinkedHashSet<String>();
+		for (final String entry : System.getProperty("java.class.path").split(
+			File.pathSeparator))
+		{
+			if (!entry.isEmpty()) entries.add(entry);
+		}
+		ClassLoader loader = ProfileContextStartup.class.getClassLoader();
+		while (loader != null) {
+			if (loader instanceof URLClassLoader) {
+				for (final URL url : ((URLClassLoader) loader).getURLs()) {
+					final File file = FileUtils.urlToFile(url);
+					if (file != null) entries.add(file.getPath());
+				}
+			}
+			loader = loader.getParent();
+		}
+		final StringBuilder sb = new StringBuilder();
+		for (final String entry : entries) {
+			if (sb.length() > 0) sb.append(File.pathSeparator);
+			sb.append(entry);
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.scijava.ItemIO;
+import org.scijava.app.StatusService;
+import org.scijava.command.Command;
+import org.scijava.command.ContextCommand;
+import org.scijava.event.EventService;
+import org.scijava.plugin.Attr;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.util.VersionUtils;
+
+/**
+ * Times each event subscriber's handling of each event type for a while, and
+ * reports the costliest ones with their invocation counts and p50, p99 and
+ * maximum latencies. See {@link EventDispatchProfiler}.
+ */
+@Plugin(type = Command.class,
+	menuPath = "Plugins>Debug>Profile Event Dispatch...", headless = true,
+	attrs = { @Attr(name = "no-legacy") })
+public class ProfileEventDispatch extends ContextCommand {
+
+	// -- Parameters --
+
+	@Parameter
+	private EventService eventService;
+
+	@Parameter(required = false)
+	private StatusService statusService;
+
+	@Parameter(label = "Duration (seconds)", min = "1")
+	private int duration = 30;
+
+	@Parameter(label = "Number of subscribers to list", min = "1")
+	private int count = 20;
+
+	@Parameter(label = "Event Dispatch Profile", type = ItemIO.OUTPUT)
+	private String profile;
+
+	// -- ProfileEventDispatch methods --
+
+	public String getProfile() {
+		return profile;
+	}
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		final EventDispatchProfiler profiler =
+			new EventDispatchProfiler(eventService);
+		if (!profiler.start()) {
+			cancel("Event dispatch profiling requires the default event service " +
+				"of scijava-common " + EventDispatchProfiler.SUPPORTED_VERSION +
+				".x, not " + eventService.getClass().getName() + " " + VersionUtils
+					.getVersion(eventService.getClass()));
+			return;
+		}
+		try {
+			final long end = System.currentTimeMillis() + duration * 1000L;
+			while (!isCanceled()) {
+				final long remaining = end - System.currentTimeMillis();
+				if (remaining <= 0) break;
+				if (statusService != null) {
+					statusService.showStatus("Profiling event dispatch: " +
+						(remaining + 999) / 1000 + " s remaining");
+				}
+				Thread.sleep(Math.min(remaining, 1000));
+			}
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			profiler.stop();
+			if (statusService != null) statusService.clearStatus();
+		}
+
+		final StringWriter out = new StringWriter();
+		try {
+			profiler.writeReport(out, count);
+		}
+		catch (final IOException exc) {
+			// NB: Never happens with a StringWriter.
+			throw new IllegalStateException(exc);
+		}
+		profile = out.toString();
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.scijava.app.App;
+import org.scijava.plugin.PluginInfo;
+import org.scijava.plugins.commands.debug.SystemInformation.Section;
+
+/**
+ * Renders the pieces of a {@link SystemInformation} report in a particular
+ * output format, as they are produced.
+ */
+interface ReportWriter {
+
+	/** Begins the report with the given one-line summary. */
+	void start(String summary) throws IOException;
+
+	void startSection(Section section) throws IOException;
+
+	void application(String name, App app) throws IOException;
+
+	void clash(String ga, String version, String shadowedVersion)
+		throws IOException;
+
+	void library(LibraryInfo lib, String sourceRef) throws IOException;
+
+	void plugins(Class<?> pluginType, List<? extends PluginInfo<?>> plugins)
+		throws IOException;
+
+	/** Writes key/value pairs, for sections which are simple maps. */
+	void entries(Map<?, ?> map) throws IOException;
+
+	void endSection(Section section) throws IOException;
+
+	void end() throws IOException;
+
+}
@@ -0,0 +1,168 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.scijava.ItemIO;
+import org.scijava.app.StatusService;
+import org.scijava.command.Command;
+import org.scijava.command.ContextCommand;
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.widget.FileWidget;
+
+/**
+ * Samples the stacks of all threads at a fixed interval for a set duration,
+ * and merges the samples into counts per distinct stack, in the
+ * collapsed-stack format read by flame graph tools. See {@link StackSampler}.
+ * <p>
+ * The full result is written to the output file, if one is given; the
+ * command's output summarizes the run and lists the most frequent stacks.
+ * </p>
+ */
+@Plugin(type = Command.class, menuPath = "Plugins>Debug>Sample Stacks...",
+	headless = true)
+public class SampleStacks extends ContextCommand {
+
+	// -- Constants --
+
+	private static final String NL = System.getProperty("line.separator");
+
+	/** Number of stacks listed in the command's output. */
+	private static final int TOP_STACKS = 20;
+
+	// -- Parameters --
+
+	@Parameter
+	private LogService log;
+
+	@Parameter(required = false)
+	private StatusService statusService;
+
+	@Parameter(label = "Sampling interval (ms)", min = "1")
+	private int interval = 20;
+
+	@Parameter(label = "Duration (seconds)", min = "1")
+	private int duration = 30;
+
+	@Parameter(label = "Include waiting and blocked threads")
+	private boolean includeIdle = false;
+
+	@Parameter(label = "Separate stacks per thread")
+	private boolean perThread = false;
+
+	@Parameter(label = "Collapsed stacks file", style = FileWidget.SAVE_STYLE,
+		required = false)
+	private File outputFile;
+
+	@Parameter(label = "Stack Samples", type = ItemIO.OUTPUT)
+	private String samples;
+
+	// -- SampleStacks methods --
+
+	public String getSamples() {
+		return samples;
+	}
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		final StackSampler sampler = new StackSampler(includeIdle, perThread);
+		final long intervalNanos = interval * 1000000L;
+		final long start = System.nanoTime();
+		final long end = start + duration * 1000000000L;
+
+		// sample at a fixed rate, skipping ticks if a sample overruns
+		long next = start;
+		while (!isCanceled()) {
+			sampler.sample();
+			final long now = System.nanoTime();
+			if (now >= end) break;
+			next += intervalNanos;
+			if (next < now) {
+				next += (now - next) / intervalNanos * intervalNanos + intervalNanos;
+			}
+			if (statusService != null && sampler.getSampleCount() % 50 == 0) {
+				statusService.showProgress((int) ((now - start) / 1000000),
+					duration * 1000);
+			}
+			try {
+				Thread.sleep((next - now) / 1000000, (int) ((next - now) % 1000000));
+			}
+			catch (final InterruptedException exc) {
+				cancel("Interrupted");
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (statusService != null) statusService.clearStatus();
+		final double elapsed = (System.nanoTime() - start) / 1e6;
+
+		final StringWriter out = new StringWriter();
+		out.write(sampler.getSampleCount() + " samples in " + format(elapsed) +
+			" ms; " + sampler.getStackCount() + " distinct stacks, " + sampler
+				.getFrameCount() + " distinct frames" + NL);
+		out.write("Sampling overhead: " + format(sampler.getSampleTime()) +
+			" ms (" + format(100 * sampler.getSampleTime() / elapsed) + "%)" + NL);
+		try {
+			if (outputFile != null) {
+				try (final Writer fileOut = Files.newBufferedWriter(outputFile
+					.toPath(), StandardCharsets.UTF_8))
+				{
+					sampler.writeCollapsed(fileOut);
+				}
+				out.write("Collapsed stacks written to " + outputFile + NL);
+			}
+			out.write(NL + "-- Most frequent stacks --" + NL);
+			sampler.writeCollapsed(out, TOP_STACKS);
+		}
+		catch (final IOException exc) {
+			log.error(exc);
+			cancel(exc.getMessage());
+		}
+		samples = out.toString();
+	}
+
+	// -- Helper methods --
+
+	private static String format(final double value) {
+		return String.format("%.1f", value);
+	}
+
+}
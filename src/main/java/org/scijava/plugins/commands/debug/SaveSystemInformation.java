@@ -0,0 +1,150 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.scijava.command.Command;
+import org.scijava.command.ContextCommand;
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.plugins.commands.debug.SystemInformation.Format;
+import org.scijava.plugins.commands.debug.SystemInformation.Section;
+import org.scijava.widget.FileWidget;
+
+/**
+ * Writes the system configuration to a file, as text or JSON.
+ * <p>
+ * Unlike {@link SystemInformation}, the report is streamed to disk one section
+ * at a time rather than built up as a single string, so memory use does not
+ * grow with the size of the class path. Unwanted sections can be left out,
+ * in which case they are not computed at all.
+ * </p>
+ */
+@Plugin(type = Command.class,
+	menuPath = "Plugins>Debug>Save System Information...", headless = true)
+public class SaveSystemInformation extends ContextCommand {
+
+	// -- Constants --
+
+	private static final String TEXT = "Text";
+	private static final String JSON = "JSON";
+
+	// -- Parameters --
+
+	@Parameter
+	private LogService log;
+
+	@Parameter(label = "Output file", style = FileWidget.SAVE_STYLE)
+	private File outputFile;
+
+	@Parameter(label = "Format", choices = { TEXT, JSON })
+	private String format = TEXT;
+
+	@Parameter(label = "Applications")
+	private boolean applications = true;
+
+	@Parameter(label = "Libraries")
+	private boolean libraries = true;
+
+	@Parameter(label = "Plugins")
+	private boolean plugins = true;
+
+	@Parameter(label = "System properties")
+	private boolean properties = true;
+
+	@Parameter(label = "Environment variables")
+	private boolean environment = true;
+
+	@Parameter(label = "Additional miscellany")
+	private boolean miscellany = true;
+
+	// -- SaveSystemInformation methods --
+
+	public File getOutputFile() {
+		return outputFile;
+	}
+
+	public void setOutputFile(final File outputFile) {
+		this.outputFile = outputFile;
+	}
+
+	public Format getFormat() {
+		return JSON.equals(format) ? Format.JSON : Format.TEXT;
+	}
+
+	public void setFormat(final Format format) {
+		this.format = format == Format.JSON ? JSON : TEXT;
+	}
+
+	/** Gets the report sections which will be written. */
+	public Set<Section> getSections() {
+		final EnumSet<Section> sections = EnumSet.noneOf(Section.class);
+		if (applications) sections.add(Section.APPLICATIONS);
+		if (libraries) sections.add(Section.LIBRARIES);
+		if (plugins) sections.add(Section.PLUGINS);
+		if (properties) sections.add(Section.PROPERTIES);
+		if (environment) sections.add(Section.ENVIRONMENT);
+		if (miscellany) sections.add(Section.MISCELLANY);
+		return sections;
+	}
+
+	/** Sets which report sections will be written. */
+	public void setSections(final Set<Section> sections) {
+		applications = sections.contains(Section.APPLICATIONS);
+		libraries = sections.contains(Section.LIBRARIES);
+		plugins = sections.contains(Section.PLUGINS);
+		properties = sections.contains(Section.PROPERTIES);
+		environment = sections.contains(Section.ENVIRONMENT);
+		miscellany = sections.contains(Section.MISCELLANY);
+	}
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		final SystemInformation sysInfo = new SystemInformation();
+		getContext().inject(sysInfo);
+		try {
+			sysInfo.write(outputFile.toPath(), getFormat(), getSections());
+		}
+		catch (final IOException exc) {
+			log.error(exc);
+			cancel(exc.getMessage());
+		}
+	}
+
+}
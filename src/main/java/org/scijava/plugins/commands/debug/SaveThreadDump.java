@@ -0,0 +1,87 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.scijava.command.Command;
+import org.scijava.command.ContextCommand;
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.plugins.commands.debug.SystemInformation.Format;
+import org.scijava.widget.FileWidget;
+
+/**
+ * Streams a dump of all threads to a file, as text or JSON. On JDK 21 and
+ * later, virtual threads are included. See
+ * {@link ThreadDump#writeDump(java.nio.file.Path, Format)}.
+ */
+@Plugin(type = Command.class, menuPath = "Plugins>Debug>Save Thread Dump...",
+	headless = true)
+public class SaveThreadDump extends ContextCommand {
+
+	// -- Constants --
+
+	private static final String TEXT = "Text";
+	private static final String JSON = "JSON";
+
+	// -- Parameters --
+
+	@Parameter
+	private LogService log;
+
+	@Parameter(label = "Output file", style = FileWidget.SAVE_STYLE)
+	private File outputFile;
+
+	@Parameter(label = "Format", choices = { TEXT, JSON })
+	private String format = TEXT;
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		final Format f = JSON.equals(format) ? Format.JSON : Format.TEXT;
+		try {
+			if (!ThreadDump.writeDump(outputFile.toPath(), f)) {
+				log.info("Virtual threads are not supported by this JVM; " +
+					"only platform threads were dumped.");
+			}
+		}
+		catch (final IOException exc) {
+			log.error(exc);
+			cancel(exc.getMessage());
+		}
+	}
+
+}
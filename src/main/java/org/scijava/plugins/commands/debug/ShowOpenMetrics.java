@@ -0,0 +1,104 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.util.List;
+
+import org.scijava.ItemIO;
+import org.scijava.command.Command;
+import org.scijava.command.ContextCommand;
+import org.scijava.plugin.Attr;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.plugins.commands.io.OpenMetrics;
+import org.scijava.plugins.commands.io.OpenMetricsService;
+import org.scijava.plugins.commands.util.Histogram;
+
+/**
+ * Reports, per opener, how many files were opened, and how long was spent
+ * finding the opener and opening the files, with p50, p99 and maximum times
+ * and the throughput in MB/s. See {@link OpenMetricsService}.
+ */
+@Plugin(type = Command.class, menuPath = "Plugins>Debug>Open Metrics...",
+	headless = true, attrs = { @Attr(name = "no-legacy") })
+public class ShowOpenMetrics extends ContextCommand {
+
+	private static final String NL = System.getProperty("line.separator");
+
+	// -- Parameters --
+
+	@Parameter
+	private OpenMetricsService openMetricsService;
+
+	@Parameter(label = "Reset afterwards")
+	private boolean reset;
+
+	@Parameter(label = "Open Metrics", type = ItemIO.OUTPUT)
+	private String metrics;
+
+	// -- ShowOpenMetrics methods --
+
+	public String getMetrics() {
+		return metrics;
+	}
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		final List<OpenMetrics> list = openMetricsService.getMetrics();
+		if (reset) openMetricsService.reset();
+
+		final StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%6s %6s %9s %9s %9s %9s %9s %9s %9s  %s%s",
+			"opens", "failed", "find p50", "find p99", "find max", "open p50",
+			"open p99", "open max", "MB/s", "opener", NL));
+		for (final OpenMetrics m : list) {
+			final Histogram find = m.getLookupNanos();
+			final Histogram open = m.getOpenNanos();
+			final double throughput = m.getThroughput();
+			final String rate = Double.isNaN(throughput) ? "-" : //
+				String.format("%.1f", throughput / 1048576);
+			sb.append(String.format(
+				"%6d %6d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f %9s  %s%s", find
+					.getCount(), m.getFailures(), find.getPercentile(0.5) / 1e6, find
+						.getPercentile(0.99) / 1e6, find.getMax() / 1e6, open
+							.getPercentile(0.5) / 1e6, open.getPercentile(0.99) / 1e6, open
+								.getMax() / 1e6, rate, m.getOpener(), NL));
+		}
+		if (list.isEmpty()) sb.append("No files opened." + NL);
+		else sb.append(NL + "Times are in ms; MB/s is the size of the local " +
+			"files opened successfully over the time spent opening them." + NL);
+		metrics = sb.toString();
+	}
+
+}
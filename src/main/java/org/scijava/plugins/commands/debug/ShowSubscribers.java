@@ -31,24 +31,25 @@
 
 package org.scijava.plugins.commands.debug;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.scijava.ItemIO;
 import org.scijava.command.Command;
-import org.scijava.display.event.DisplayActivatedEvent;
-import org.scijava.display.event.DisplayUpdatedEvent;
 import org.scijava.event.EventService;
 import org.scijava.event.EventSubscriber;
 import org.scijava.event.SciJavaEvent;
-import org.scijava.object.event.ObjectCreatedEvent;
-import org.scijava.object.event.ObjectDeletedEvent;
-import org.scijava.object.event.ObjectsListEvent;
 import org.scijava.plugin.Attr;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
 
 /**
  * For EventBus diagnostics: shows what is subscribed to various event types.
+ * <p>
+ * Each run takes a {@link SubscriberCensus}, so the subscriber counts are
+ * compared against earlier runs; event types whose subscriber counts keep
+ * growing are listed first, as likely leaks.
+ * </p>
  * 
  * @author Grant Harris
  * @author Curtis Rueden
@@ -73,25 +74,45 @@ public class ShowSubscribers implements Command {
 
 	@Override
 	public void run() {
+		final SubscriberCensus census = SubscriberCensus.take(eventService);
 		final StringBuilder sb = new StringBuilder();
-		listSubs(sb, ObjectsListEvent.class);
-		listSubs(sb, ObjectCreatedEvent.class);
-		listSubs(sb, ObjectDeletedEvent.class);
-		listSubs(sb, DisplayActivatedEvent.class);
-		listSubs(sb, DisplayUpdatedEvent.class);
+
+		final List<Class<? extends SciJavaEvent>> leaks =
+			new ArrayList<Class<? extends SciJavaEvent>>();
+		for (final Class<? extends SciJavaEvent> c : census.getEventTypes()) {
+			if (census.isGrowing(c)) leaks.add(c);
+		}
+		if (!leaks.isEmpty()) {
+			sb.append("Likely leaks (subscriber count grew in each of the last " +
+				SubscriberCensus.GROWTH_THRESHOLD + " runs):\n");
+			for (final Class<? extends SciJavaEvent> c : leaks) {
+				sb.append("    " + c.getSimpleName() + ": " + census
+					.getSubscribers(c).size() + " subscribers, " + signed(census
+						.getTotalChange(c)) + " over the last " + census.getCensusCount() +
+					" runs\n");
+			}
+			sb.append("\n");
+		}
+
+		for (final Class<? extends SciJavaEvent> c : census.getEventTypes()) {
+			listSubs(sb, c, census.getSubscribers(c));
+		}
 		subscriberLog = sb.toString();
 	}
 
 	// -- Helper methods --
 
-	private <E extends SciJavaEvent> void listSubs(final StringBuilder sb,
-		final Class<E> c)
+	private void listSubs(final StringBuilder sb, final Class<?> c,
+		final List<EventSubscriber<?>> subscribers)
 	{
-		final List<EventSubscriber<E>> subscribers = eventService.getSubscribers(c);
 		sb.append(c.getSimpleName() + ":\n");
-		for (final EventSubscriber<E> subscriber : subscribers) {
+		for (final EventSubscriber<?> subscriber : subscribers) {
 			sb.append("    " + subscriber.toString() + "\n");
 		}
 	}
 
+	private static String signed(final int n) {
+		return n > 0 ? "+" + n : "" + n;
+	}
+
 }
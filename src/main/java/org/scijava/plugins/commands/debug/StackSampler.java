@@ -0,0 +1,278 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Accumulates samples of thread stacks as counts per distinct stack, for
+ * output in the collapsed-stack format read by flame graph tools.
+ * <p>
+ * Sampling is designed to be cheap enough to run on a loaded JVM for minutes:
+ * frames are interned to integer IDs the first time they are seen, stacks are
+ * stored once as arrays of frame IDs in an open-addressing table with
+ * primitive counters, and a sample of an already-seen stack does not allocate
+ * or build any strings. Strings are only produced when the result is written.
+ * </p>
+ * <p>
+ * This class is not thread-safe; samples should be taken from a single
+ * thread.
+ * </p>
+ */
+public class StackSampler {
+
+	// -- Fields --
+
+	private final boolean includeIdle;
+	private final boolean perThread;
+
+	/** Frame IDs by stack trace element; equal frames share an ID. */
+	private final HashMap<StackTraceElement, Integer> frameIds =
+		new HashMap<StackTraceElement, Integer>();
+
+	/** Frame IDs by frame name, for elements differing only in line number. */
+	private final HashMap<String, Integer> nameIds =
+		new HashMap<String, Integer>();
+
+	/** Frame IDs of thread names, for per-thread stacks. */
+	private final WeakHashMap<Thread, Integer> threadIds =
+		new WeakHashMap<Thread, Integer>();
+
+	private final ArrayList<String> frameNames = new ArrayList<String>();
+
+	/** Stacks as frame IDs, root first; null marks an empty slot. */
+	private int[][] stacks = new int[1024][];
+	private long[] counts = new long[1024];
+	private int size;
+
+	/** Scratch buffer for the stack being looked up. */
+	private int[] buffer = new int[256];
+
+	private long sampleCount;
+	private long sampleNanos;
+
+	/**
+	 * Creates a sampler.
+	 * 
+	 * @param includeIdle Whether to sample threads which are waiting or
+	 *          blocked, rather than only runnable threads.
+	 * @param perThread Whether to prefix each stack with its thread's name.
+	 */
+	public StackSampler(final boolean includeIdle, final boolean perThread) {
+		this.includeIdle = includeIdle;
+		this.perThread = perThread;
+	}
+
+	// -- StackSampler methods --
+
+	/** Samples the stacks of all live threads, except the calling thread. */
+	public void sample() {
+		final long start = System.nanoTime();
+		final Thread self = Thread.currentThread();
+		for (final Map.Entry<Thread, StackTraceElement[]> entry : Thread
+			.getAllStackTraces().entrySet())
+		{
+			final Thread t = entry.getKey();
+			if (t == self) continue;
+			if (!includeIdle && t.getState() != Thread.State.RUNNABLE) continue;
+			add(t, entry.getValue());
+		}
+		sampleCount++;
+		sampleNanos += System.nanoTime() - start;
+	}
+
+	/** Gets the number of times {@link #sample()} has been called. */
+	public long getSampleCount() {
+		return sampleCount;
+	}
+
+	/** Gets the total time spent taking samples, in milliseconds. */
+	public double getSampleTime() {
+		return sampleNanos / 1e6;
+	}
+
+	/** Gets the number of distinct stacks seen. */
+	public int getStackCount() {
+		return size;
+	}
+
+	/** Gets the number of distinct frames seen. */
+	public int getFrameCount() {
+		return frameNames.size();
+	}
+
+	/**
+	 * Writes the samples in collapsed-stack format: one line per distinct
+	 * stack, with frames from the root separated by semicolons, followed by a
+	 * space and the number of times the stack was seen. Stacks are written in
+	 * descending order of count.
+	 */
+	public void writeCollapsed(final Writer out) throws IOException {
+		writeCollapsed(out, Integer.MAX_VALUE);
+	}
+
+	/** Writes the given number of most frequent stacks in collapsed format. */
+	public void writeCollapsed(final Writer out, final int limit)
+		throws IOException
+	{
+		final List<Integer> order = new ArrayList<Integer>(size);
+		for (int i = 0; i < stacks.length; i++) {
+			if (stacks[i] != null) order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+
+			@Override
+			public int compare(final Integer i1, final Integer i2) {
+				return Long.compare(counts[i2], counts[i1]);
+			}
+		});
+
+		final StringBuilder sb = new StringBuilder();
+		for (int n = 0; n < order.size() && n < limit; n++) {
+			final int slot = order.get(n);
+			sb.setLength(0);
+			final int[] stack = stacks[slot];
+			for (int i = 0; i < stack.length; i++) {
+				if (i > 0) sb.append(';');
+				sb.append(frameNames.get(stack[i]));
+			}
+			sb.append(' ');
+			sb.append(counts[slot]);
+			sb.append('\n');
+			out.write(sb.toString());
+		}
+		out.flush();
+	}
+
+	// -- Helper methods --
+
+	/** Counts one sample of the given thread's stack trace. */
+	void add(final Thread t, final StackTraceElement[] trace) {
+		// fill the buffer with frame IDs, root first
+		final int offset = perThread ? 1 : 0;
+		final int length = trace.length + offset;
+		if (length == 0) return;
+		if (buffer.length < length) buffer = new int[length * 2];
+		if (perThread) buffer[0] = threadId(t);
+		for (int i = 0; i < trace.length; i++) {
+			buffer[offset + i] = frameId(trace[trace.length - 1 - i]);
+		}
+
+		// find or insert the stack
+		if (2 * (size + 1) > stacks.length) grow();
+		int slot = slot(buffer, length, stacks.length);
+		while (stacks[slot] != null) {
+			if (matches(stacks[slot], buffer, length)) {
+				counts[slot]++;
+				return;
+			}
+			slot = (slot + 1) & (stacks.length - 1);
+		}
+		stacks[slot] = Arrays.copyOf(buffer, length);
+		counts[slot] = 1;
+		size++;
+	}
+
+	private int frameId(final StackTraceElement element) {
+		final Integer id = frameIds.get(element);
+		if (id != null) return id;
+		final int newId =
+			nameId(element.getClassName() + "." + element.getMethodName());
+		frameIds.put(element, newId);
+		return newId;
+	}
+
+	private int threadId(final Thread t) {
+		final Integer id = threadIds.get(t);
+		if (id != null) return id;
+		final int newId = nameId("[" + t.getName() + "]");
+		threadIds.put(t, newId);
+		return newId;
+	}
+
+	private int nameId(final String name) {
+		final Integer id = nameIds.get(name);
+		if (id != null) return id;
+		final int newId = frameNames.size();
+		frameNames.add(name);
+		nameIds.put(name, newId);
+		return newId;
+	}
+
+	private void grow() {
+		final int[][] oldStacks = stacks;
+		final long[] oldCounts = counts;
+		stacks = new int[oldStacks.length * 2][];
+		counts = new long[oldCounts.length * 2];
+		for (int i = 0; i < oldStacks.length; i++) {
+			final int[] stack = oldStacks[i];
+			if (stack == null) continue;
+			int slot = slot(stack, stack.length, stacks.length);
+			while (stacks[slot] != null) {
+				slot = (slot + 1) & (stacks.length - 1);
+			}
+			stacks[slot] = stack;
+			counts[slot] = oldCounts[i];
+		}
+	}
+
+	private static int slot(final int[] stack, final int length,
+		final int capacity)
+	{
+		int hash = 1;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + stack[i];
+		}
+		hash ^= hash >>> 16;
+		return hash & (capacity - 1);
+	}
+
+	private static boolean matches(final int[] stack, final int[] buffer,
+		final int length)
+	{
+		if (stack.length != length) return false;
+		for (int i = 0; i < length; i++) {
+			if (stack[i] != buffer[i]) return false;
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,473 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.scijava.Context;
+import org.scijava.InstantiableException;
+import org.scijava.command.Command;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.PluginIndex;
+import org.scijava.plugin.PluginInfo;
+import org.scijava.service.Service;
+import org.scijava.service.ServiceHelper;
+import org.scijava.util.ClassUtils;
+
+/**
+ * Measures how long a SciJava context takes to start up: plugin discovery,
+ * the initialization of each service (in the order the services are created),
+ * and the loading of plugin classes, per plugin type. It also records which
+ * services each command requests via {@link Parameter} injection.
+ * <p>
+ * Each service is timed after its own service dependencies have been created,
+ * so the <em>self</em> time of a service excludes its dependencies while its
+ * <em>total</em> time includes them. The result is available as a text report
+ * ({@link #writeText(Writer)}) and as a trace file in the Trace Event Format
+ * ({@link #writeTrace(Writer)}), which can be opened in Chrome's
+ * {@code about:tracing} page or in Perfetto.
+ * </p>
+ * <p>
+ * Profiling creates, and then disposes, a complete context of its own, with
+ * all its services, listeners and threads; classes which the JVM has already
+ * loaded are not loaded again. So rather than profiling from inside a running
+ * application, which would also measure a warm start, run
+ * {@link #main(String[])} in a fresh JVM with the same class path, as
+ * {@link ProfileContextStartup} does.
+ * </p>
+ */
+public class StartupProfile {
+
+	// -- Constants --
+
+	private static final String NL = System.getProperty("line.separator");
+
+	/** Category of spans covering plugin discovery and class loading. */
+	public static final String PLUGINS = "plugins";
+
+	/** Category of spans covering service initialization. */
+	public static final String SERVICES = "services";
+
+	// -- Fields --
+
+	private final List<Span> spans = new ArrayList<Span>();
+
+	private final TreeMap<String, List<String>> commandServices =
+		new TreeMap<String, List<String>>();
+
+	private long origin;
+
+	private StartupProfile() {
+		// NB: Use profile to obtain a startup profile.
+	}
+
+	// -- Static methods --
+
+	/**
+	 * Profiles the creation of a new context with all available services.
+	 * The context is disposed afterwards.
+	 */
+	public static StartupProfile profile() {
+		return profile(null);
+	}
+
+	/**
+	 * Profiles the creation of a new context with the given services (or all
+	 * available services, if null). The context is disposed afterwards.
+	 */
+	public static StartupProfile profile(
+		final Collection<Class<? extends Service>> serviceClasses)
+	{
+		final StartupProfile profile = new StartupProfile();
+		profile.run(serviceClasses);
+		return profile;
+	}
+
+	/**
+	 * Profiles a cold context startup, printing the report to standard output.
+	 * If a path is given as an argument, the trace is also written there.
+	 */
+	public static void main(final String... args) throws IOException {
+		final StartupProfile profile = profile();
+		final Writer out = new OutputStreamWriter(System.out);
+		profile.writeText(out);
+		out.flush();
+		if (args.length > 0) profile.writeTrace(Paths.get(args[0]));
+		// NB: Exit even if a non-daemon thread outlives the disposed context.
+		System.exit(0);
+	}
+
+	// -- StartupProfile methods --
+
+	/** Gets the measured spans, in the order they started. */
+	public List<Span> getSpans() {
+		return Collections.unmodifiableList(spans);
+	}
+
+	/**
+	 * Gets the services requested by each command, as a map from command class
+	 * name to the names of the service types of its {@link Parameter} fields.
+	 */
+	public Map<String, List<String>> getCommandServices() {
+		return Collections.unmodifiableMap(commandServices);
+	}
+
+	/** Writes the profile as a human-readable report. */
+	public void writeText(final Writer out) throws IOException {
+		// count the commands requesting each service type
+		final Map<String, Integer> usage = new TreeMap<String, Integer>();
+		for (final List<String> services : commandServices.values()) {
+			for (final String service : services) {
+				final Integer count = usage.get(service);
+				usage.put(service, count == null ? 1 : count + 1);
+			}
+		}
+
+		double serviceTime = 0;
+		int serviceCount = 0;
+		for (final Span span : spans) {
+			if (!SERVICES.equals(span.getCategory())) continue;
+			serviceTime += span.getSelfTime();
+			serviceCount++;
+		}
+
+		out.write("-- Plugins --" + NL);
+		for (final Span span : spans) {
+			if (!PLUGINS.equals(span.getCategory())) continue;
+			out.write(String.format("%10.3f ms  %s%s", span.getTotalTime(), span
+				.getName(), NL));
+		}
+
+		out.write(NL + "-- Services (" + serviceCount + ", in initialization " +
+			"order; total ms, self ms) --" + NL);
+		for (final Span span : spans) {
+			if (!SERVICES.equals(span.getCategory())) continue;
+			final StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < span.getDepth(); i++)
+				sb.append("  ");
+			sb.append(span.getName());
+			for (final String type : span.getServiceTypes()) {
+				final Integer count = usage.get(type);
+				if (count == null) continue;
+				sb.append(" [" + type + ": " + count + " command(s)]");
+			}
+			out.write(String.format("%10.3f %10.3f  %s%s", span.getTotalTime(),
+				span.getSelfTime(), sb, NL));
+		}
+		out.write(String.format("%10.3f ms in all services%s", serviceTime, NL));
+
+		out.write(NL + "-- Command services --" + NL);
+		for (final Map.Entry<String, List<String>> entry : commandServices
+			.entrySet())
+		{
+			if (entry.getValue().isEmpty()) continue;
+			out.write(entry.getKey() + ": " + join(entry.getValue()) + NL);
+		}
+		out.flush();
+	}
+
+	/** Writes the profile to the given file, in the Trace Event Format. */
+	public void writeTrace(final Path path) throws IOException {
+		try (final Writer out = Files.newBufferedWriter(path,
+			StandardCharsets.UTF_8))
+		{
+			writeTrace(out);
+		}
+	}
+
+	/** Writes the profile in the Trace Event Format, as JSON. */
+	public void writeTrace(final Writer out) throws IOException {
+		final JSONWriter json = new JSONWriter(out);
+		json.beginObject();
+		json.property("displayTimeUnit", "ms");
+		json.name("traceEvents").beginArray();
+		for (final Span span : spans) {
+			json.beginObject();
+			json.property("name", span.getName());
+			json.property("cat", span.getCategory());
+			json.property("ph", "X");
+			json.property("ts", span.start / 1000);
+			json.property("dur", (span.end - span.start) / 1000);
+			json.property("pid", 1);
+			json.property("tid", 1);
+			final LinkedHashMap<String, Object> args =
+				new LinkedHashMap<String, Object>();
+			args.put("class", span.getClassName());
+			if (span.getCount() >= 0) args.put("count", span.getCount());
+			if (SERVICES.equals(span.getCategory())) {
+				args.put("selfMs", span.getSelfTime());
+				args.put("serviceTypes", span.getServiceTypes());
+			}
+			json.property("args", args);
+			json.endObject();
+		}
+		json.endArray();
+		json.property("commandServices", commandServices);
+		json.endObject();
+		json.flush();
+	}
+
+	// -- Helper classes --
+
+	/** A timed step of the context startup. */
+	public static class Span {
+
+		private final String name;
+		private final String category;
+		private final String className;
+		private final int depth;
+		private final List<String> serviceTypes = new ArrayList<String>();
+		private long start, end, self;
+		private int count = -1;
+
+		private Span(final String name, final String category,
+			final String className, final int depth)
+		{
+			this.name = name;
+			this.category = category;
+			this.className = className;
+			this.depth = depth;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/** Gets the span's category: {@link #PLUGINS} or {@link #SERVICES}. */
+		public String getCategory() {
+			return category;
+		}
+
+		public String getClassName() {
+			return className;
+		}
+
+		/** Gets the nesting depth of a service created as a dependency. */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * Gets the names of the service types which resolved to this service,
+		 * as requested by commands.
+		 */
+		public List<String> getServiceTypes() {
+			return serviceTypes;
+		}
+
+		/** Gets the number of plugins involved, or -1 if not applicable. */
+		public int getCount() {
+			return count;
+		}
+
+		/** Gets the start time, in milliseconds since profiling began. */
+		public double getStartTime() {
+			return start / 1e6;
+		}
+
+		/** Gets the wall time, in milliseconds, including any dependencies. */
+		public double getTotalTime() {
+			return (end - start) / 1e6;
+		}
+
+		/** Gets the wall time, in milliseconds, excluding any dependencies. */
+		public double getSelfTime() {
+			return self / 1e6;
+		}
+	}
+
+	// -- Helper methods --
+
+	private void run(final Collection<Class<? extends Service>> serviceClasses) {
+		origin = System.nanoTime();
+
+		// discover plugins, creating a context without services
+		final PluginIndex pluginIndex = new PluginIndex();
+		final Span discovery = begin("Plugin discovery", PLUGINS,
+			PluginIndex.class.getName(), 0);
+		final List<Class<? extends Service>> noServices = Collections.emptyList();
+		final Context context = new Context(noServices, pluginIndex, false);
+		end(discovery);
+		discovery.count = pluginIndex.size();
+
+		try {
+			// initialize services, dependencies first
+			final List<Class<? extends Service>> pool =
+				new ArrayList<Class<? extends Service>>();
+			for (final PluginInfo<Service> info : pluginIndex.getPlugins(
+				Service.class))
+			{
+				try {
+					pool.add(info.loadClass());
+				}
+				catch (final InstantiableException exc) {
+					// NB: Skip invalid service.
+				}
+			}
+			final Collection<Class<? extends Service>> toLoad =
+				serviceClasses == null ? pool : serviceClasses;
+			final ServiceHelper helper = new ServiceHelper(context, toLoad, false);
+			final Set<Class<?>> visiting = new HashSet<Class<?>>();
+			for (final Class<? extends Service> c : toLoad) {
+				loadService(context, helper, pool, c, visiting, 0);
+			}
+
+			// load the remaining plugin classes, one plugin type at a time
+			final PluginInventory inventory = new PluginInventory(pluginIndex);
+			for (final Class<?> type : inventory.getPluginTypes()) {
+				if (Service.class.isAssignableFrom(type)) continue;
+				final List<? extends PluginInfo<?>> plugins =
+					inventory.getPlugins(type);
+				final Span span = begin("Load " + type.getSimpleName() + " classes",
+					PLUGINS, type.getName(), 0);
+				for (final PluginInfo<?> info : plugins) {
+					final Class<?> c;
+					try {
+						c = info.loadClass();
+					}
+					catch (final InstantiableException exc) {
+						continue;
+					}
+					if (Command.class.isAssignableFrom(c)) {
+						commandServices.put(c.getName(), serviceTypes(context, c));
+					}
+				}
+				end(span);
+				span.count = plugins.size();
+			}
+		}
+		finally {
+			context.dispose();
+		}
+	}
+
+	/**
+	 * Creates the given service, after recursively creating the services it
+	 * depends on.
+	 */
+	private void loadService(final Context context, final ServiceHelper helper,
+		final List<Class<? extends Service>> pool,
+		final Class<? extends Service> c, final Set<Class<?>> visiting,
+		final int depth)
+	{
+		if (context.getService(c) != null || !visiting.add(c)) return;
+		final Span span = begin(c.getSimpleName(), SERVICES, c.getName(), depth);
+		for (final Field field : ClassUtils.getAnnotatedFields(c,
+			Parameter.class))
+		{
+			final Class<?> type = field.getType();
+			if (!Service.class.isAssignableFrom(type)) continue;
+			if (context.getService(type.asSubclass(Service.class)) != null) {
+				continue;
+			}
+			for (final Class<? extends Service> candidate : pool) {
+				if (!type.isAssignableFrom(candidate)) continue;
+				loadService(context, helper, pool, candidate, visiting, depth + 1);
+				break;
+			}
+		}
+		final long selfStart = System.nanoTime();
+		helper.loadService(c);
+		span.self = System.nanoTime() - selfStart;
+		span.end = System.nanoTime() - origin;
+	}
+
+	/**
+	 * Gets the names of the service types a class requests via injection, and
+	 * notes each type on the span of the service which answers it.
+	 */
+	private List<String> serviceTypes(final Context context, final Class<?> c) {
+		final List<String> types = new ArrayList<String>();
+		for (final Field field : ClassUtils.getAnnotatedFields(c,
+			Parameter.class))
+		{
+			final Class<?> type = field.getType();
+			if (!Service.class.isAssignableFrom(type)) continue;
+			final String typeName = type.getName();
+			if (types.contains(typeName)) continue;
+			types.add(typeName);
+
+			final Service service =
+				context.getService(type.asSubclass(Service.class));
+			if (service == null) continue;
+			final String className = service.getClass().getName();
+			for (final Span span : spans) {
+				if (!className.equals(span.getClassName())) continue;
+				if (!span.serviceTypes.contains(typeName)) {
+					span.serviceTypes.add(typeName);
+				}
+				break;
+			}
+		}
+		return types;
+	}
+
+	private Span begin(final String name, final String category,
+		final String className, final int depth)
+	{
+		final Span span = new Span(name, category, className, depth);
+		spans.add(span);
+		span.start = System.nanoTime() - origin;
+		return span;
+	}
+
+	private void end(final Span span) {
+		span.end = System.nanoTime() - origin;
+		span.self = span.end - span.start;
+	}
+
+	private static String join(final List<String> list) {
+		final StringBuilder sb = new StringBuilder();
+		for (final String s : list) {
+			if (sb.length() > 0) sb.append(", ");
+			sb.append(s.substring(s.lastIndexOf('.') + 1));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,298 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+import org.scijava.app.event.StatusEvent;
+import org.scijava.display.event.DisplayActivatedEvent;
+import org.scijava.display.event.DisplayCreatedEvent;
+import org.scijava.display.event.DisplayDeletedEvent;
+import org.scijava.display.event.DisplayUpdatedEvent;
+import org.scijava.event.DefaultEventBus;
+import org.scijava.event.DefaultEventService;
+import org.scijava.event.EventService;
+import org.scijava.event.EventSubscriber;
+import org.scijava.event.SciJavaEvent;
+import org.scijava.event.bushe.ThreadSafeEventService;
+import org.scijava.io.event.IOEvent;
+import org.scijava.module.event.ModuleEvent;
+import org.scijava.module.event.ModulesListEvent;
+import org.scijava.object.event.ObjectCreatedEvent;
+import org.scijava.object.event.ObjectDeletedEvent;
+import org.scijava.object.event.ObjectsAddedEvent;
+import org.scijava.object.event.ObjectsListEvent;
+import org.scijava.object.event.ObjectsRemovedEvent;
+import org.scijava.plugin.event.PluginsListEvent;
+import org.scijava.ui.event.UIShownEvent;
+
+/**
+ * A count of the subscribers to a list of event types, compared against the
+ * earlier censuses of the same {@link EventService}.
+ * <p>
+ * An event type whose subscriber count has grown at each of the last
+ * {@value #GROWTH_THRESHOLD} censuses is flagged as a likely subscriber leak.
+ * </p>
+ * <p>
+ * By default, the census covers every event type with subscribers, including
+ * those defined by plugins. The {@link EventService} can only be asked for
+ * the subscribers of a given event type, so the types subscribed to are read
+ * from its event bus by reflection, as {@link EventDispatchProfiler} does;
+ * where that is not supported, the census covers a fixed list of common event
+ * types, {@link #EVENT_TYPES}, instead.
+ * </p>
+ * <p>
+ * Each subscriber is counted only under the event type it subscribed to, not
+ * under the subtypes whose events it also receives, so that one leaked
+ * subscriber is reported once.
+ * </p>
+ */
+public class SubscriberCensus {
+
+	// -- Constants --
+
+	/** Number of consecutive increases which flag a likely leak. */
+	public static final int GROWTH_THRESHOLD = 3;
+
+	/** Event types counted when those subscribed to cannot be determined. */
+	public static final List<Class<? extends SciJavaEvent>> EVENT_TYPES =
+		Collections.unmodifiableList(Arrays.<Class<? extends SciJavaEvent>> asList(
+			ObjectsListEvent.class, ObjectCreatedEvent.class,
+			ObjectDeletedEvent.class, DisplayActivatedEvent.class,
+			DisplayUpdatedEvent.class, ObjectsAddedEvent.class,
+			ObjectsRemovedEvent.class, DisplayCreatedEvent.class,
+			DisplayDeletedEvent.class, ModuleEvent.class, ModulesListEvent.class,
+			PluginsListEvent.class, IOEvent.class, StatusEvent.class,
+			UIShownEvent.class, SciJavaEvent.class));
+
+	/** Number of earlier censuses remembered per event service. */
+	private static final int HISTORY_SIZE = 10;
+
+	/**
+	 * Earlier subscriber counts by event type name, oldest first. Keyed by
+	 * name, so as to keep no references to the event classes themselves.
+	 */
+	private static final Map<EventService, LinkedList<Map<String, Integer>>> //
+	HISTORY = new WeakHashMap<EventService, LinkedList<Map<String, Integer>>>();
+
+	// -- Fields --
+
+	private final Map<Class<? extends SciJavaEvent>, //
+		List<EventSubscriber<?>>> subs;
+	private final List<Map<String, Integer>> history;
+
+	private SubscriberCensus(
+		final Map<Class<? extends SciJavaEvent>, List<EventSubscriber<?>>> subs,
+		final List<Map<String, Integer>> history)
+	{
+		this.subs = subs;
+		this.history = history;
+	}
+
+	// -- Static methods --
+
+	/**
+	 * Counts the subscribers of every event type subscribed to, or of the
+	 * {@link #EVENT_TYPES} if those cannot be determined, and records the counts
+	 * for comparison by later censuses.
+	 */
+	public static SubscriberCensus take(final EventService eventService) {
+		final List<Class<? extends SciJavaEvent>> types =
+			getSubscribedTypes(eventService);
+		return take(eventService, types == null ? EVENT_TYPES : types);
+	}
+
+	/**
+	 * Counts the subscribers of the given event types, and records the counts
+	 * for comparison by later censuses.
+	 */
+	public static SubscriberCensus take(final EventService eventService,
+		final List<Class<? extends SciJavaEvent>> eventTypes)
+	{
+		final Map<Class<? extends SciJavaEvent>, List<EventSubscriber<?>>> subs =
+			new LinkedHashMap<Class<? extends SciJavaEvent>, //
+				List<EventSubscriber<?>>>();
+		final Map<String, Integer> counts = new TreeMap<String, Integer>();
+		for (final Class<? extends SciJavaEvent> type : eventTypes) {
+			final List<EventSubscriber<?>> list = new ArrayList<EventSubscriber<?>>();
+			for (final EventSubscriber<?> sub : eventService.getSubscribers(type)) {
+				// NB: Skip the subscribers of supertypes.
+				if (sub.getEventClass() == type) list.add(sub);
+			}
+			subs.put(type, list);
+			counts.put(type.getName(), list.size());
+		}
+
+		final List<Map<String, Integer>> history;
+		synchronized (HISTORY) {
+			LinkedList<Map<String, Integer>> list = HISTORY.get(eventService);
+			if (list == null) {
+				list = new LinkedList<Map<String, Integer>>();
+				HISTORY.put(eventService, list);
+			}
+			list.add(counts);
+			if (list.size() > HISTORY_SIZE) list.removeFirst();
+			history = new ArrayList<Map<String, Integer>>(list);
+		}
+		return new SubscriberCensus(subs, history);
+	}
+
+	/**
+	 * Gets the event types to which the given service has subscribers, sorted
+	 * by name.
+	 * 
+	 * @return The event types, or null if the service does not support
+	 *         listing them; see {@link EventDispatchProfiler#isSupported}.
+	 */
+	public static List<Class<? extends SciJavaEvent>> getSubscribedTypes(
+		final EventService eventService)
+	{
+		if (!EventDispatchProfiler.isSupported(eventService)) return null;
+		final List<Class<? extends SciJavaEvent>> types =
+			new ArrayList<Class<? extends SciJavaEvent>>();
+		try {
+			final Object bus = field(DefaultEventService.class, "eventBus").get(
+				eventService);
+			if (!(bus instanceof DefaultEventBus)) return null;
+			final Map<?, ?> byClass = (Map<?, ?>) field(
+				ThreadSafeEventService.class, "subscribersByEventClass").get(bus);
+			final Object lock = field(ThreadSafeEventService.class, "listenerLock")
+				.get(bus);
+			synchronized (lock) {
+				for (final Object key : byClass.keySet()) {
+					if (!(key instanceof Class)) continue;
+					final Class<?> c = (Class<?>) key;
+					if (SciJavaEvent.class.isAssignableFrom(c)) {
+						types.add(c.asSubclass(SciJavaEvent.class));
+					}
+				}
+			}
+		}
+		catch (final NoSuchFieldException | IllegalAccessException
+				| RuntimeException exc)
+		{
+			// NB: RuntimeException covers a SecurityException, a
+			// ClassCastException from changed internals, or the
+			// InaccessibleObjectException of a module system denying access.
+			return null;
+		}
+		Collections.sort(types, new Comparator<Class<?>>() {
+
+			@Override
+			public int compare(final Class<?> c1, final Class<?> c2) {
+				return c1.getName().compareTo(c2.getName());
+			}
+		});
+		return types;
+	}
+
+	// -- SubscriberCensus methods --
+
+	/** Gets the event types counted, in the order given. */
+	public Set<Class<? extends SciJavaEvent>> getEventTypes() {
+		return Collections.unmodifiableSet(subs.keySet());
+	}
+
+	/** Gets the subscribers to exactly the given event type. */
+	public List<EventSubscriber<?>> getSubscribers(
+		final Class<? extends SciJavaEvent> eventType)
+	{
+		final List<EventSubscriber<?>> list = subs.get(eventType);
+		if (list == null) return Collections.emptyList();
+		return Collections.unmodifiableList(list);
+	}
+
+	/** Gets the number of censuses of this event service remembered so far. */
+	public int getCensusCount() {
+		return history.size();
+	}
+
+	/**
+	 * Gets the change in the number of subscribers of the given event type
+	 * since the previous census, or 0 if this is the first.
+	 */
+	public int getChange(final Class<? extends SciJavaEvent> eventType) {
+		final int n = history.size();
+		if (n < 2) return 0;
+		return count(n - 1, eventType) - count(n - 2, eventType);
+	}
+
+	/**
+	 * Gets the change in the number of subscribers of the given event type
+	 * since the oldest remembered census.
+	 */
+	public int getTotalChange(final Class<? extends SciJavaEvent> eventType) {
+		return count(history.size() - 1, eventType) - count(0, eventType);
+	}
+
+	/**
+	 * Gets whether the number of subscribers of the given event type has grown
+	 * at each of the last {@value #GROWTH_THRESHOLD} censuses.
+	 */
+	public boolean isGrowing(final Class<? extends SciJavaEvent> eventType) {
+		final int n = history.size();
+		if (n <= GROWTH_THRESHOLD) return false;
+		for (int i = n - GROWTH_THRESHOLD; i < n; i++) {
+			if (count(i, eventType) <= count(i - 1, eventType)) return false;
+		}
+		return true;
+	}
+
+	// -- Helper methods --
+
+	private static Field field(final Class<?> c, final String name)
+		throws NoSuchFieldException
+	{
+		final Field field = c.getDeclaredField(name);
+		field.setAccessible(true);
+		return field;
+	}
+
+	private int count(final int index,
+		final Class<? extends SciJavaEvent> eventType)
+	{
+		final Integer count = history.get(index).get(eventType.getName());
+		return count == null ? 0 : count;
+	}
+
+}
@@ -33,15 +33,19 @@ package org.scijava.plugins.commands.debug;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.JarURLConnection;
-import java.net.URL;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import javax.tools.JavaCompiler;
@@ -56,11 +60,8 @@ import org.scijava.command.Command;
 import org.scijava.log.LogService;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
-import org.scijava.plugin.PluginInfo;
-import org.scijava.plugin.SciJavaPlugin;
 import org.scijava.util.ClassUtils;
 import org.scijava.util.Manifest;
-import org.scijava.util.POM;
 
 /**
  * Dumps the full system configuration, including installed libraries and Java
@@ -76,6 +77,34 @@ public class SystemInformation implements Command {
 
 	private static final String NL = System.getProperty("line.separator");
 
+	// -- Enums --
+
+	/** The sections of a system information report. */
+	public enum Section {
+			APPLICATIONS("applications"), //
+			LIBRARIES("libraries"), //
+			PLUGINS("plugins"), //
+			PROPERTIES("properties"), //
+			ENVIRONMENT("environment"), //
+			MISCELLANY("miscellany");
+
+		private final String key;
+
+		private Section(final String key) {
+			this.key = key;
+		}
+
+		/** Gets the stable key identifying this section in JSON output. */
+		public String getKey() {
+			return key;
+		}
+	}
+
+	/** The output formats of a system information report. */
+	public enum Format {
+			TEXT, JSON
+	}
+
 	// -- Parameters --
 
 	@Parameter
@@ -93,185 +122,83 @@ public class SystemInformation implements Command {
 	@Parameter(label = "System Information", type = ItemIO.OUTPUT)
 	private String info;
 
-	// -- Runnable methods --
-
-	@Override
-	public void run() {
-		statusService.showStatus("Gathering system information");
-
-		final List<POM> poms = POM.getAllPOMs();
-
-		int progress = 0, max = 10 + poms.size();
-		statusService.showProgress(++progress, max);
-
-		final StringBuilder sb = new StringBuilder();
-
-		// dump basic version information (similar to the status bar)
-
-		sb.append(appService.getApp().getInfo(false) + NL);
+	// -- SystemInformation methods --
 
-		statusService.showProgress(++progress, max);
+	/** Gets the report produced by the most recent {@link #run()}. */
+	public String getInfo() {
+		return info;
+	}
 
-		// dump information about available SciJava applications
+	/**
+	 * Writes the full system information report to the given file, replacing
+	 * any existing content.
+	 * 
+	 * @see #write(Writer)
+	 */
+	public void write(final Path path) throws IOException {
+		write(path, Format.TEXT, EnumSet.allOf(Section.class));
+	}
 
-		final Map<String, App> apps = appService.getApps();
-		for (final String name : apps.keySet()) {
-			final App app = apps.get(name);
-			final Manifest manifest = app.getManifest();
-			sb.append(NL);
-			sb.append("-- Application: " + name + " --" + NL);
-			sb.append("Title = " + app.getTitle() + NL);
-			sb.append("Version = " + app.getVersion() + NL);
-			sb.append("groupId = " + app.getGroupId() + NL);
-			sb.append("artifactId = " + app.getArtifactId() + NL);
-			if (manifest != null) {
-				sb.append(getManifestData(manifest));
-			}
+	/**
+	 * Writes the requested sections of the system information report to the
+	 * given file in the given format, replacing any existing content.
+	 * 
+	 * @see #write(Writer, Format, Set)
+	 */
+	public void write(final Path path, final Format format,
+		final Set<Section> sections) throws IOException
+	{
+		try (final Writer out = Files.newBufferedWriter(path,
+			StandardCharsets.UTF_8))
+		{
+			write(out, format, sections);
 		}
+	}
 
-		statusService.showProgress(++progress, max);
-
-		// dump all available Maven metadata on the class path
+	/**
+	 * Writes the full system information report to the given writer, as text.
+	 * 
+	 * @see #write(Writer, Format, Set)
+	 */
+	public void write(final Writer out) throws IOException {
+		write(out, Format.TEXT, EnumSet.allOf(Section.class));
+	}
 
-		// check for library version clashes
-		final HashMap<String, POM> pomsByGA = new HashMap<String, POM>();
-		for (final POM pom : poms) {
-			final String ga = pom.getGroupId() + ":" + pom.getArtifactId();
-			final POM priorPOM = pomsByGA.get(ga);
-			if (priorPOM == null) {
-				pomsByGA.put(ga, pom);
-			}
-			else {
-				sb.append("[WARNING] Version clash for " + ga + ": " +
-					pom.getVersion() + " shadows " + priorPOM.getVersion() + NL);
-			}
+	/**
+	 * Writes the requested sections of the system information report to the
+	 * given writer, in the given format.
+	 * <p>
+	 * Each section is written out as soon as it is produced, so the report as a
+	 * whole is never held in memory. Sections which are not requested are not
+	 * computed at all.
+	 * </p>
+	 */
+	public void write(final Writer out, final Format format,
+		final Set<Section> sections) throws IOException
+	{
+		statusService.showStatus("Gathering system information");
+		try {
+			writeReport(out, format, sections);
 		}
-
-		statusService.showProgress(++progress, max);
-
-		// output libraries in sorted order
-		final ArrayList<POM> sortedPOMs = new ArrayList<POM>(poms);
-		Collections.sort(sortedPOMs);
-		for (final POM pom : sortedPOMs) {
-			statusService.showProgress(++progress, max);
-
-			final String pomPath = pom.getPath();
-			final String groupId = pom.getGroupId();
-			final String artifactId = pom.getArtifactId();
-			final String version = pom.getVersion();
-			final String name = pom.getProjectName();
-			final String url = pom.getProjectURL();
-			final String year = pom.getProjectInceptionYear();
-			final String orgName = pom.getOrganizationName();
-			final String orgURL = pom.getOrganizationURL();
-			final String title = name == null ? groupId + ":" + artifactId : name;
-
-			final String scmConnection = pom.cdata("//project/scm/connection");
-			final String scmTag = pom.cdata("//project/scm/tag");
-			String sourceRef = null;
-			if (scmTag == null || scmTag.isEmpty() || scmTag.equals("HEAD") ||
-				scmTag.equals("master"))
-			{
-				// look in the JAR manifest for the commit hash
-				// TODO: Make POM API support obtaining the associated Manifest.
-
-				// grab Implementation-Build entry out of the JAR manifest
-				if (pomPath != null && pomPath.contains(".jar!")) {
-					final String jarPath = pomPath.substring(0, pomPath.indexOf("!"));
-					try {
-						final URL jarURL = new URL("jar:" + jarPath + "!/");
-						final JarURLConnection conn =
-								(JarURLConnection) jarURL.openConnection();
-						final String key = "Implementation-Build";
-						sourceRef = conn.getManifest().getMainAttributes().getValue(key);
-					}
-					catch (final IOException e) {
-						log.debug(e);
-					}
-				}
-			}
-			else {
-				// ref is a valid tag
-				sourceRef = scmTag;
-			}
-
-			sb.append(NL);
-			sb.append("-- Library: " + title + " --" + NL);
-			if (pomPath != null) sb.append("path = " + pomPath + NL);
-			if (groupId != null) sb.append("groupId = " + groupId + NL);
-			if (artifactId != null) sb.append("artifactId = " + artifactId + NL);
-			if (version != null) sb.append("version = " + version + NL);
-			if (url != null) sb.append("project URL = " + url + NL);
-			if (year != null) sb.append("inception year = " + year + NL);
-			if (orgName != null) sb.append("organization name = " + orgName + NL);
-			if (orgURL != null) sb.append("organization URL = " + orgURL + NL);
-			if (scmConnection != null) sb.append("scm = " + scmConnection + NL);
-			if (sourceRef != null) sb.append("source ref = " + sourceRef + NL);
+		finally {
+			// NB: Clear the progress bar even if writing fails partway.
+			statusService.clearStatus();
 		}
+	}
 
-		statusService.showProgress(++progress, max);
-
-		// compute the set of known plugin types
+	// -- Runnable methods --
 
-		final List<PluginInfo<?>> plugins = context.getPluginIndex().getAll();
-		final HashSet<Class<? extends SciJavaPlugin>> pluginTypeSet =
-			new HashSet<Class<? extends SciJavaPlugin>>();
-		for (final PluginInfo<?> plugin : plugins) {
-			pluginTypeSet.add(plugin.getPluginType());
+	@Override
+	public void run() {
+		final StringWriter out = new StringWriter();
+		try {
+			write(out);
 		}
-
-		statusService.showProgress(++progress, max);
-
-		// convert to a list of plugin types, sorted by fully qualified class name
-
-		final ArrayList<Class<? extends SciJavaPlugin>> pluginTypes =
-			new ArrayList<Class<? extends SciJavaPlugin>>(pluginTypeSet);
-		Collections.sort(pluginTypes, new Comparator<Class<?>>() {
-
-			@Override
-			public int compare(final Class<?> c1, final Class<?> c2) {
-				return ClassUtils.compare(c1, c2);
-			}
-
-		});
-
-		statusService.showProgress(++progress, max);
-
-		// dump the list of available plugins, organized by plugin type
-
-		for (final Class<? extends SciJavaPlugin> pluginType : pluginTypes) {
-			dumpPlugins(sb, pluginType);
+		catch (final IOException exc) {
+			// NB: Should never happen, since StringWriter does not do I/O.
+			log.error(exc);
 		}
-
-		statusService.showProgress(++progress, max);
-
-		// dump system properties
-
-		sb.append(NL);
-		sb.append("-- System properties --" + NL);
-		sb.append(getSystemProperties());
-
-		statusService.showProgress(++progress, max);
-
-		// dump environment variables
-
-		sb.append(NL);
-		sb.append("-- Environment variables --" + NL);
-		sb.append(getEnvironmentVariables());
-
-		statusService.showProgress(++progress, max);
-
-		// dump miscellaneous extra information
-
-		sb.append(NL);
-		sb.append("-- Additional miscellany --" + NL);
-		sb.append(getMiscellany());
-
-		statusService.showProgress(++progress, max);
-
-		info = sb.toString();
-
-		statusService.clearStatus();
+		info = out.toString();
 	}
 
 	// -- Utility methods --
@@ -285,15 +212,7 @@ public class SystemInformation implements Command {
 	}
 
 	public static String getMiscellany() {
-		final HashMap<String, Object> miscellany = new HashMap<String, Object>();
-
-		final JavaCompiler sjc = ToolProvider.getSystemJavaCompiler();
-		miscellany.put("System Java compiler", classNameAndLocation(sjc));
-
-		final ClassLoader stcl = ToolProvider.getSystemToolClassLoader();
-		miscellany.put("System tool class loader", classNameAndLocation(stcl));
-
-		return mapToString(miscellany);
+		return mapToString(miscellany());
 	}
 
 	public static String getManifestData(final Manifest manifest) {
@@ -302,8 +221,24 @@ public class SystemInformation implements Command {
 	}
 
 	public static String mapToString(final Map<?, ?> map) {
-		final StringBuilder sb = new StringBuilder();
+		final StringWriter out = new StringWriter();
+		try {
+			writeMap(map, out);
+		}
+		catch (final IOException exc) {
+			// NB: Should never happen, since StringWriter does not do I/O.
+			throw new IllegalStateException(exc);
+		}
+		return out.toString();
+	}
 
+	/**
+	 * Writes the given map's entries to the given writer, sorted by key, in the
+	 * same format as {@link #mapToString(Map)}.
+	 */
+	public static void writeMap(final Map<?, ?> map, final Writer out)
+		throws IOException
+	{
 		// sort keys by string representation
 		final ArrayList<Object> keys = new ArrayList<Object>(map.keySet());
 		Collections.sort(keys, new Comparator<Object>() {
@@ -327,41 +262,154 @@ public class SystemInformation implements Command {
 			if (sKey.endsWith(".dirs") || sKey.endsWith(".path")) {
 				// split path and display values as a list
 				final String[] dirs = sValue.split(Pattern.quote(File.pathSeparator));
-				sb.append(sKey + " = {" + NL);
+				out.write(sKey + " = {" + NL);
 				for (final String dir : dirs) {
-					sb.append("\t" + dir + NL);
+					out.write("\t" + dir + NL);
 				}
-				sb.append("}" + NL);
+				out.write("}" + NL);
 			}
 			else {
 				// display a single key/value pair
-				sb.append(sKey + " = " + sValue + NL);
+				out.write(sKey + " = " + sValue + NL);
 			}
 		}
-		return sb.toString();
 	}
 
 	// -- Helper methods --
 
-	private <PT extends SciJavaPlugin> void dumpPlugins(final StringBuilder sb,
-		final Class<PT> pluginType)
+	static Map<String, Object> miscellany() {
+		final HashMap<String, Object> miscellany = new HashMap<String, Object>();
+
+		final JavaCompiler sjc = ToolProvider.getSystemJavaCompiler();
+		miscellany.put("System Java compiler", classNameAndLocation(sjc));
+
+		final ClassLoader stcl = ToolProvider.getSystemToolClassLoader();
+		miscellany.put("System tool class loader", classNameAndLocation(stcl));
+
+		return miscellany;
+	}
+
+	/** Writes the report proper, updating the progress bar as it goes. */
+	private void writeReport(final Writer out, final Format format,
+		final Set<Section> sections) throws IOException
 	{
-		final List<PluginInfo<PT>> plugins =
-			context.getPluginIndex().getPlugins(pluginType);
+		final ReportWriter report = format == Format.JSON
+			? new JSONReportWriter(out) : new TextReportWriter(out);
+
+		final List<LibraryInfo> libraries = sections.contains(Section.LIBRARIES)
+			? LibraryScanner.getLibraries() : Collections.<LibraryInfo> emptyList();
+
+		int progress = 0, max = 2 + sections.size() + libraries.size();
+		statusService.showProgress(++progress, max);
+
+		// dump basic version information (similar to the status bar)
+
+		report.start(appService.getApp().getInfo(false));
+
+		statusService.showProgress(++progress, max);
+
+		// dump information about available SciJava applications
 
-		// count the number of plugins whose type matches exactly (not sub-types)
-		int pluginCount = 0;
-		for (final PluginInfo<PT> plugin : plugins) {
-			if (pluginType == plugin.getPluginType()) pluginCount++;
+		if (sections.contains(Section.APPLICATIONS)) {
+			report.startSection(Section.APPLICATIONS);
+			final Map<String, App> apps = appService.getApps();
+			for (final String name : apps.keySet()) {
+				report.application(name, apps.get(name));
+			}
+			report.endSection(Section.APPLICATIONS);
+			statusService.showProgress(++progress, max);
+		}
+
+		// dump all available Maven metadata on the class path
+
+		if (sections.contains(Section.LIBRARIES)) {
+			report.startSection(Section.LIBRARIES);
+
+			// check for library version clashes
+			final HashMap<String, LibraryInfo> libsByGA =
+				new HashMap<String, LibraryInfo>();
+			for (final LibraryInfo lib : libraries) {
+				final String ga = lib.getGA();
+				final LibraryInfo priorLib = libsByGA.get(ga);
+				if (priorLib == null) {
+					libsByGA.put(ga, lib);
+				}
+				else {
+					report.clash(ga, lib.getVersion(), priorLib.getVersion());
+				}
+			}
+
+			// output libraries in sorted order
+			final ArrayList<LibraryInfo> sortedLibs =
+				new ArrayList<LibraryInfo>(libraries);
+			Collections.sort(sortedLibs);
+			for (final LibraryInfo lib : sortedLibs) {
+				statusService.showProgress(++progress, max);
+				report.library(lib, sourceRef(lib));
+			}
+
+			report.endSection(Section.LIBRARIES);
+			statusService.showProgress(++progress, max);
+		}
+
+		// dump the list of available plugins, organized by plugin type
+
+		if (sections.contains(Section.PLUGINS)) {
+			report.startSection(Section.PLUGINS);
+			dumpPlugins(report);
+			report.endSection(Section.PLUGINS);
+			statusService.showProgress(++progress, max);
 		}
-		if (pluginCount == 0) return;
-
-		sb.append(NL);
-		sb.append("-- " + pluginCount + " " + pluginType.getName() +
-			" plugins --" + NL);
-		for (final PluginInfo<PT> plugin : plugins) {
-			if (pluginType != plugin.getPluginType()) continue;
-			sb.append(plugin + NL);
+
+		// dump system properties
+
+		if (sections.contains(Section.PROPERTIES)) {
+			report.startSection(Section.PROPERTIES);
+			report.entries(System.getProperties());
+			report.endSection(Section.PROPERTIES);
+			statusService.showProgress(++progress, max);
+		}
+
+		// dump environment variables
+
+		if (sections.contains(Section.ENVIRONMENT)) {
+			report.startSection(Section.ENVIRONMENT);
+			report.entries(System.getenv());
+			report.endSection(Section.ENVIRONMENT);
+			statusService.showProgress(++progress, max);
+		}
+
+		// dump miscellaneous extra information
+
+		if (sections.contains(Section.MISCELLANY)) {
+			report.startSection(Section.MISCELLANY);
+			report.entries(miscellany());
+			report.endSection(Section.MISCELLANY);
+			statusService.showProgress(++progress, max);
+		}
+
+		report.end();
+	}
+
+	/** Determines the SCM revision from which the given library was built. */
+	private static String sourceRef(final LibraryInfo lib) {
+		final String scmTag = lib.getSCMTag();
+		if (scmTag == null || scmTag.isEmpty() || scmTag.equals("HEAD") ||
+			scmTag.equals("master"))
+		{
+			// use the commit hash from the JAR manifest, if any
+			return lib.getImplementationBuild();
+		}
+		// ref is a valid tag
+		return scmTag;
+	}
+
+	private void dumpPlugins(final ReportWriter report) throws IOException {
+		// NB: Group all plugins by type in a single pass over the index.
+		final PluginInventory inventory =
+			new PluginInventory(context.getPluginIndex());
+		for (final Class<?> pluginType : inventory.getPluginTypes()) {
+			report.plugins(pluginType, inventory.getPlugins(pluginType));
 		}
 	}
 
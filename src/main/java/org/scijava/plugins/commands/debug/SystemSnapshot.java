@@ -0,0 +1,357 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.scijava.Context;
+import org.scijava.app.App;
+import org.scijava.app.AppService;
+import org.scijava.plugin.PluginInfo;
+import org.scijava.plugins.commands.debug.SystemInformation.Section;
+import org.scijava.util.DigestUtils;
+import org.scijava.util.Manifest;
+
+/**
+ * A compact, comparable record of the system configuration: one sorted map of
+ * key/value entries per {@link Section}, each with a fingerprint.
+ * <p>
+ * Snapshots can be saved to disk and later compared against the current
+ * configuration to report what was added, removed or changed. Sections whose
+ * fingerprints match are known to be unchanged, and are skipped without
+ * comparing their entries. Note that fingerprints are computed from the
+ * captured entries, so capturing a section still gathers all of them.
+ * </p>
+ * <p>
+ * The entries of each section are:
+ * </p>
+ * <ul>
+ * <li>applications: application name to version (and build, if known)</li>
+ * <li>libraries: {@code groupId:artifactId} to version(s), in class path
+ * order</li>
+ * <li>plugins: {@code type:class} to plugin priority and status, since one
+ * class may be registered as a plugin of several types</li>
+ * <li>properties, environment and miscellany: key to value</li>
+ * </ul>
+ */
+public class SystemSnapshot {
+
+	// -- Constants --
+
+	private static final String NL = System.getProperty("line.separator");
+
+	/** Key prefix of section fingerprints in saved snapshots. */
+	private static final String FINGERPRINT = "#";
+
+	/** Placeholder for versions which are not known. */
+	private static final String UNKNOWN = "(unknown)";
+
+	// -- Fields --
+
+	private final EnumMap<Section, SortedMap<String, String>> entries =
+		new EnumMap<Section, SortedMap<String, String>>(Section.class);
+
+	private final EnumMap<Section, String> fingerprints =
+		new EnumMap<Section, String>(Section.class);
+
+	private SystemSnapshot() {
+		// NB: Use capture or load to obtain a snapshot.
+	}
+
+	// -- Static methods --
+
+	/** Captures the given sections of the current system configuration. */
+	public static SystemSnapshot capture(final Context context,
+		final Set<Section> sections)
+	{
+		final SystemSnapshot snapshot = new SystemSnapshot();
+		for (final Section section : sections) {
+			final TreeMap<String, String> map = new TreeMap<String, String>();
+			switch (section) {
+				case APPLICATIONS:
+					captureApps(context.service(AppService.class), map);
+					break;
+				case LIBRARIES:
+					captureLibraries(LibraryScanner.getLibraries(), map);
+					break;
+				case PLUGINS:
+					capturePlugins(new PluginInventory(context.getPluginIndex()), map);
+					break;
+				case PROPERTIES:
+					captureMap(System.getProperties(), map);
+					break;
+				case ENVIRONMENT:
+					captureMap(System.getenv(), map);
+					break;
+				case MISCELLANY:
+					captureMap(SystemInformation.miscellany(), map);
+					break;
+			}
+			snapshot.put(section, map, fingerprint(map));
+		}
+		return snapshot;
+	}
+
+	/** Loads a snapshot previously written by {@link #save(Path)}. */
+	public static SystemSnapshot load(final Path path) throws IOException {
+		final Properties props = new Properties();
+		try (final InputStream in = Files.newInputStream(path)) {
+			props.load(in);
+		}
+
+		final SystemSnapshot snapshot = new SystemSnapshot();
+		for (final Section section : Section.values()) {
+			final String fingerprint =
+				props.getProperty(FINGERPRINT + section.getKey());
+			if (fingerprint == null) continue; // section was not captured
+			final String prefix = section.getKey() + ":";
+			final TreeMap<String, String> map = new TreeMap<String, String>();
+			for (final String key : props.stringPropertyNames()) {
+				if (!key.startsWith(prefix)) continue;
+				map.put(key.substring(prefix.length()), props.getProperty(key));
+			}
+			snapshot.put(section, map, fingerprint);
+		}
+		return snapshot;
+	}
+
+	// -- SystemSnapshot methods --
+
+	/** Gets the sections captured in this snapshot. */
+	public Set<Section> getSections() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	/** Gets the entries of the given section, sorted by key. */
+	public SortedMap<String, String> getEntries(final Section section) {
+		final SortedMap<String, String> map = entries.get(section);
+		if (map == null) return null;
+		return Collections.unmodifiableSortedMap(map);
+	}
+
+	/** Gets a digest of the entries of the given section. */
+	public String getFingerprint(final Section section) {
+		return fingerprints.get(section);
+	}
+
+	/** Writes this snapshot to the given file. */
+	public void save(final Path path) throws IOException {
+		final Properties props = new Properties();
+		for (final Section section : entries.keySet()) {
+			final String fingerprint = fingerprints.get(section);
+			props.setProperty(FINGERPRINT + section.getKey(), fingerprint);
+			final String prefix = section.getKey() + ":";
+			for (final Map.Entry<String, String> entry : entries.get(section)
+				.entrySet())
+			{
+				props.setProperty(prefix + entry.getKey(), entry.getValue());
+			}
+		}
+		try (final OutputStream out = Files.newOutputStream(path)) {
+			props.store(out, "SciJava system information snapshot");
+		}
+	}
+
+	/**
+	 * Writes the differences between the given baseline and this snapshot,
+	 * section by section. Sections present in both snapshots with matching
+	 * fingerprints are reported as unchanged without being compared.
+	 * 
+	 * @return The total number of added, removed and changed entries.
+	 */
+	public int writeDiff(final SystemSnapshot baseline, final Writer out)
+		throws IOException
+	{
+		int total = 0;
+		final List<String> unchanged = new ArrayList<String>();
+		for (final Section section : Section.values()) {
+			final SortedMap<String, String> current = entries.get(section);
+			final SortedMap<String, String> base = baseline.entries.get(section);
+			if (current == null || base == null) continue;
+			final String fingerprint = fingerprints.get(section);
+			if (fingerprint.equals(baseline.fingerprints.get(section))) {
+				unchanged.add(section.getKey());
+				continue;
+			}
+			total += writeDiff(section, base, current, out);
+		}
+		if (!unchanged.isEmpty()) {
+			out.write(NL);
+			out.write("Unchanged: " + join(unchanged) + NL);
+		}
+		out.flush();
+		return total;
+	}
+
+	// -- Helper methods --
+
+	private void put(final Section section, final SortedMap<String, String> map,
+		final String fingerprint)
+	{
+		entries.put(section, map);
+		fingerprints.put(section, fingerprint);
+	}
+
+	private static int writeDiff(final Section section,
+		final SortedMap<String, String> base,
+		final SortedMap<String, String> current, final Writer out)
+		throws IOException
+	{
+		final LinkedHashMap<String, String> added =
+			new LinkedHashMap<String, String>();
+		final LinkedHashMap<String, String> removed =
+			new LinkedHashMap<String, String>();
+		final LinkedHashMap<String, String> changed =
+			new LinkedHashMap<String, String>();
+		for (final Map.Entry<String, String> entry : current.entrySet()) {
+			final String key = entry.getKey(), value = entry.getValue();
+			final String baseValue = base.get(key);
+			if (baseValue == null) added.put(key, value);
+			else if (!baseValue.equals(value)) {
+				changed.put(key, baseValue + " -> " + value);
+			}
+		}
+		for (final Map.Entry<String, String> entry : base.entrySet()) {
+			if (!current.containsKey(entry.getKey())) {
+				removed.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		out.write(NL);
+		out.write("-- " + section.getKey() + ": " + added.size() + " added, " +
+			removed.size() + " removed, " + changed.size() + " changed --" + NL);
+		writeEntries("+ ", added, out);
+		writeEntries("- ", removed, out);
+		writeEntries("~ ", changed, out);
+		return added.size() + removed.size() + changed.size();
+	}
+
+	private static void writeEntries(final String prefix,
+		final Map<String, String> map, final Writer out) throws IOException
+	{
+		for (final Map.Entry<String, String> entry : map.entrySet()) {
+			out.write(prefix + entry.getKey() + " = " + entry.getValue() + NL);
+		}
+	}
+
+	private static void captureApps(final AppService appService,
+		final Map<String, String> map)
+	{
+		for (final Map.Entry<String, App> entry : appService.getApps()
+			.entrySet())
+		{
+			final App app = entry.getValue();
+			final Manifest manifest = app.getManifest();
+			final String build =
+				manifest == null ? null : manifest.getImplementationBuild();
+			final String version = orUnknown(app.getVersion());
+			map.put(entry.getKey(),
+				build == null ? version : version + " (" + build + ")");
+		}
+	}
+
+	/** Captures the given libraries' versions, in class path order. */
+	static void captureLibraries(final List<LibraryInfo> libraries,
+		final Map<String, String> map)
+	{
+		for (final LibraryInfo lib : libraries) {
+			final String ga = lib.getGA();
+			final String prior = map.get(ga);
+			final String version = orUnknown(lib.getVersion());
+			map.put(ga, prior == null ? version : prior + ", " + version);
+		}
+	}
+
+	private static void capturePlugins(final PluginInventory inventory,
+		final Map<String, String> map)
+	{
+		for (final Class<?> pluginType : inventory.getPluginTypes()) {
+			for (final PluginInfo<?> plugin : inventory.getPlugins(pluginType)) {
+				map.put(pluginType.getName() + ":" + plugin.getClassName(),
+					"priority=" + plugin.getPriority() +
+						(plugin.isEnabled() ? "" : ", disabled"));
+			}
+		}
+	}
+
+	private static void captureMap(final Map<?, ?> source,
+		final Map<String, String> map)
+	{
+		for (final Map.Entry<?, ?> entry : source.entrySet()) {
+			if (entry.getKey() == null) continue;
+			final Object value = entry.getValue();
+			final String sValue = value == null ? "(null)" : value.toString();
+			map.put(entry.getKey().toString(), sValue);
+		}
+	}
+
+	private static String orUnknown(final String version) {
+		return version == null ? UNKNOWN : version;
+	}
+
+	/** Computes a digest of the given sorted entries. */
+	private static String fingerprint(final SortedMap<String, String> map) {
+		final StringBuilder sb = new StringBuilder();
+		for (final Map.Entry<String, String> entry : map.entrySet()) {
+			sb.append(entry.getKey()).append('=').append(entry.getValue());
+			sb.append('\n');
+		}
+		final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+		return DigestUtils.hex(DigestUtils.sha1(bytes));
+	}
+
+	private static String join(final List<String> list) {
+		final StringBuilder sb = new StringBuilder();
+		for (final String s : list) {
+			if (sb.length() > 0) sb.append(", ");
+			sb.append(s);
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+import org.scijava.app.App;
+import org.scijava.plugin.PluginInfo;
+import org.scijava.plugins.commands.debug.SystemInformation.Section;
+import org.scijava.util.Manifest;
+
+/**
+ * Renders a {@link SystemInformation} report as human-readable text.
+ */
+class TextReportWriter implements ReportWriter {
+
+	private static final String NL = System.getProperty("line.separator");
+
+	private final Writer out;
+
+	public TextReportWriter(final Writer out) {
+		this.out = out;
+	}
+
+	// -- ReportWriter methods --
+
+	@Override
+	public void start(final String summary) throws IOException {
+		out.write(summary + NL);
+	}
+
+	@Override
+	public void startSection(final Section section) throws IOException {
+		switch (section) {
+			case PROPERTIES:
+				out.write(NL);
+				out.write("-- System properties --" + NL);
+				break;
+			case ENVIRONMENT:
+				out.write(NL);
+				out.write("-- Environment variables --" + NL);
+				break;
+			case MISCELLANY:
+				out.write(NL);
+				out.write("-- Additional miscellany --" + NL);
+				break;
+			default:
+				// NB: Other sections have a header per entry instead.
+		}
+	}
+
+	@Override
+	public void application(final String name, final App app)
+		throws IOException
+	{
+		final Manifest manifest = app.getManifest();
+		out.write(NL);
+		out.write("-- Application: " + name + " --" + NL);
+		out.write("Title = " + app.getTitle() + NL);
+		out.write("Version = " + app.getVersion() + NL);
+		out.write("groupId = " + app.getGroupId() + NL);
+		out.write("artifactId = " + app.getArtifactId() + NL);
+		if (manifest != null) {
+			SystemInformation.writeMap(manifest.getAll(), out);
+		}
+	}
+
+	@Override
+	public void clash(final String ga, final String version,
+		final String shadowedVersion) throws IOException
+	{
+		out.write("[WARNING] Version clash for " + ga + ": " + version +
+			" shadows " + shadowedVersion + NL);
+	}
+
+	@Override
+	public void library(final LibraryInfo lib, final String sourceRef)
+		throws IOException
+	{
+		final String pomPath = lib.getPath();
+		final String groupId = lib.getGroupId();
+		final String artifactId = lib.getArtifactId();
+		final String version = lib.getVersion();
+		final String url = lib.getProjectURL();
+		final String year = lib.getProjectInceptionYear();
+		final String orgName = lib.getOrganizationName();
+		final String orgURL = lib.getOrganizationURL();
+		final String scmConnection = lib.getSCMConnection();
+
+		out.write(NL);
+		out.write("-- Library: " + lib.getTitle() + " --" + NL);
+		if (pomPath != null) out.write("path = " + pomPath + NL);
+		if (groupId != null) out.write("groupId = " + groupId + NL);
+		if (artifactId != null) out.write("artifactId = " + artifactId + NL);
+		if (version != null) out.write("version = " + version + NL);
+		if (url != null) out.write("project URL = " + url + NL);
+		if (year != null) out.write("inception year = " + year + NL);
+		if (orgName != null) out.write("organization name = " + orgName + NL);
+		if (orgURL != null) out.write("organization URL = " + orgURL + NL);
+		if (scmConnection != null) out.write("scm = " + scmConnection + NL);
+		if (sourceRef != null) out.write("source ref = " + sourceRef + NL);
+	}
+
+	@Override
+	public void plugins(final Class<?> pluginType,
+		final List<? extends PluginInfo<?>> plugins) throws IOException
+	{
+		out.write(NL);
+		out.write("-- " + plugins.size() + " " + pluginType.getName() +
+			" plugins --" + NL);
+		for (final PluginInfo<?> plugin : plugins) {
+			out.write(plugin + NL);
+		}
+	}
+
+	@Override
+	public void entries(final Map<?, ?> map) throws IOException {
+		SystemInformation.writeMap(map, out);
+	}
+
+	@Override
+	public void endSection(final Section section) throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void end() throws IOException {
+		out.flush();
+	}
+
+}
@@ -0,0 +1,531 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.scijava.ItemIO;
+import org.scijava.command.Command;
+import org.scijava.plugin.Attr;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.plugins.commands.debug.SystemInformation.Format;
+
+/**
+ * Provides a detailed or a condensed dump of all threads.
+ * <p>
+ * In the default mode, unlike {@link DumpStack}, the dump shows which
+ * monitors and ownable synchronizers each thread holds, which lock it is
+ * waiting for and who owns it, how often each thread has blocked or waited,
+ * and each thread's CPU and user time. Any deadlocked threads are listed at
+ * the top of the report, one cycle at a time.
+ * </p>
+ * <p>
+ * In grouped mode, threads with identical stacks are merged into one entry,
+ * which keeps the dump of a JVM with large thread pools short.
+ * </p>
+ * <p>
+ * To stream a dump to a file, including any virtual threads, see
+ * {@link #writeDump(Path, Format)} and {@link SaveThreadDump}.
+ * </p>
+ */
+@Plugin(type = Command.class, menuPath = "Plugins>Debug>Thread Dump...",
+	headless = true, attrs = { @Attr(name = "no-legacy") })
+public class ThreadDump implements Command {
+
+	// -- Constants --
+
+	private static final String NL = System.getProperty("line.separator");
+
+	private static final String LOCKS = "Locks and CPU time";
+	private static final String GROUPED = "Grouped by stack";
+
+	// -- Parameters --
+
+	@Parameter(label = "Mode", choices = { LOCKS, GROUPED })
+	private String mode = LOCKS;
+
+	@Parameter(label = "Thread Dump", type = ItemIO.OUTPUT)
+	private String threadDump;
+
+	// -- ThreadDump methods --
+
+	public String getThreadDump() {
+		return threadDump;
+	}
+
+	// -- Runnable methods --
+
+	@Override
+	public void run() {
+		threadDump = GROUPED.equals(mode) ? groupedDump() : lockDump();
+	}
+
+	// -- Utility methods --
+
+	/**
+	 * Dumps all threads with their locks, lock waits, contention statistics and
+	 * CPU times, preceded by any deadlock cycles.
+	 */
+	public static String lockDump() {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		final boolean monitors = bean.isObjectMonitorUsageSupported();
+		final boolean synchronizers = bean.isSynchronizerUsageSupported();
+		final ThreadInfo[] infos = bean.dumpAllThreads(monitors, synchronizers);
+		final Map<Long, ThreadInfo> infoById = new HashMap<Long, ThreadInfo>();
+		for (final ThreadInfo info : infos) {
+			if (info != null) infoById.put(info.getThreadId(), info);
+		}
+
+		final StringBuilder sb = new StringBuilder();
+
+		// deadlocks first
+		final long[] deadlocked = synchronizers ? bean.findDeadlockedThreads()
+			: bean.findMonitorDeadlockedThreads();
+		if (deadlocked != null) {
+			final List<List<ThreadInfo>> cycles = cycles(deadlocked, infoById);
+			for (final List<ThreadInfo> cycle : cycles) {
+				sb.append("Found a deadlock cycle of " + cycle.size() + " threads:");
+				sb.append(NL);
+				for (final ThreadInfo info : cycle) {
+					sb.append("  \"" + info.getThreadName() + "\" id=" + info
+						.getThreadId() + " is waiting to lock ");
+					sb.append(lock(info.getLockInfo()));
+					sb.append(NL);
+					sb.append("    which is held by \"" + info.getLockOwnerName() +
+						"\" id=" + info.getLockOwnerId());
+					sb.append(NL);
+				}
+				sb.append(NL);
+			}
+		}
+
+		// sort list of threads by name
+		final ArrayList<ThreadInfo> sorted =
+			new ArrayList<ThreadInfo>(infoById.values());
+		Collections.sort(sorted, new Comparator<ThreadInfo>() {
+
+			@Override
+			public int compare(final ThreadInfo t1, final ThreadInfo t2) {
+				return t1.getThreadName().compareTo(t2.getThreadName());
+			}
+		});
+
+		final boolean cpu = bean.isThreadCpuTimeSupported() && bean
+			.isThreadCpuTimeEnabled();
+		for (final ThreadInfo info : sorted) {
+			final long id = info.getThreadId();
+			final long cpuTime = cpu ? bean.getThreadCpuTime(id) : -1;
+			final long userTime = cpu ? bean.getThreadUserTime(id) : -1;
+			dumpThread(info, cpuTime, userTime, sb);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Dumps all threads, merging threads with identical stacks and states into
+	 * one entry listing the threads' names. Groups are sorted by decreasing
+	 * size, then by state.
+	 */
+	public static String groupedDump() {
+		final Map<Thread, StackTraceElement[]> stackTraces =
+			Thread.getAllStackTraces();
+
+		// group threads by state and stack
+		final Map<List<Object>, StackGroup> groups =
+			new HashMap<List<Object>, StackGroup>();
+		for (final Map.Entry<Thread, StackTraceElement[]> entry : stackTraces
+			.entrySet())
+		{
+			final Thread t = entry.getKey();
+			final Thread.State state = t.getState();
+			final StackTraceElement[] trace = entry.getValue();
+			final List<Object> key = Arrays.asList(state, Arrays.asList(trace));
+			StackGroup group = groups.get(key);
+			if (group == null) {
+				group = new StackGroup(state, trace);
+				groups.put(key, group);
+			}
+			group.threads.add(t.getName());
+		}
+
+		final ArrayList<StackGroup> sorted =
+			new ArrayList<StackGroup>(groups.values());
+		Collections.sort(sorted);
+
+		final StringBuilder sb = new StringBuilder();
+		sb.append(stackTraces.size());
+		sb.append(" threads, ");
+		sb.append(sorted.size());
+		sb.append(" distinct stacks");
+		sb.append(NL);
+		sb.append(NL);
+		for (final StackGroup group : sorted) {
+			Collections.sort(group.threads);
+			sb.append(group.threads.size());
+			sb.append(group.threads.size() == 1 ? " thread" : " threads");
+			sb.append(", java.lang.Thread.State: ");
+			sb.append(group.state);
+			sb.append(NL);
+			sb.append("   ");
+			for (int i = 0; i < group.threads.size(); i++) {
+				if (i > 0) sb.append(", ");
+				sb.append("\"");
+				sb.append(group.threads.get(i));
+				sb.append("\"");
+			}
+			sb.append(NL);
+			for (final StackTraceElement element : group.trace) {
+				sb.append("\tat ");
+				sb.append(element);
+				sb.append(NL);
+			}
+			sb.append(NL);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Writes a dump of all threads to the given file, as text or JSON, without
+	 * building it up in memory.
+	 * <p>
+	 * On JDK 21 and later, the dump is written by the JVM itself (as with
+	 * {@code jcmd <pid> Thread.dump_to_file}), and includes virtual threads,
+	 * grouped by the thread container (e.g., executor service or structured
+	 * task scope) they belong to. On older JDKs, the platform threads are
+	 * written one at a time, in the same layout.
+	 * </p>
+	 * 
+	 * @return true if the dump was written by the JVM and includes virtual
+	 *         threads, or false if only platform threads were dumped.
+	 */
+	public static boolean writeDump(final Path path, final Format format)
+		throws IOException
+	{
+		final Path absPath = path.toAbsolutePath();
+		final Method dumpThreads = dumpThreadsMethod();
+		if (dumpThreads != null) {
+			// NB: The JVM refuses to overwrite an existing file.
+			Files.deleteIfExists(absPath);
+			final Class<?> formatClass = dumpThreads.getParameterTypes()[1];
+			final String formatName =
+				format == Format.JSON ? "JSON" : "TEXT_PLAIN";
+			try {
+				dumpThreads.invoke(diagnosticBean(), absPath.toString(),
+					valueOf(formatClass, formatName));
+				return true;
+			}
+			catch (final InvocationTargetException exc) {
+				final Throwable cause = exc.getCause();
+				if (cause instanceof IOException) throw (IOException) cause;
+				throw new IOException(cause);
+			}
+			catch (final IllegalAccessException exc) {
+				// NB: Fall back to dumping platform threads.
+			}
+		}
+
+		try (final Writer out = Files.newBufferedWriter(absPath,
+			StandardCharsets.UTF_8))
+		{
+			if (format == Format.JSON) writeJSON(out);
+			else writeText(out);
+		}
+		return false;
+	}
+
+	// -- Helper classes --
+
+	/** Threads sharing the same state and stack trace. */
+	private static class StackGroup implements Comparable<StackGroup> {
+
+		private final Thread.State state;
+		private final StackTraceElement[] trace;
+		private final List<String> threads = new ArrayList<String>();
+
+		private StackGroup(final Thread.State state,
+			final StackTraceElement[] trace)
+		{
+			this.state = state;
+			this.trace = trace;
+		}
+
+		@Override
+		public int compareTo(final StackGroup that) {
+			if (threads.size() != that.threads.size()) {
+				return that.threads.size() - threads.size();
+			}
+			return state.compareTo(that.state);
+		}
+	}
+
+	// -- Helper methods --
+
+	/** Splits the given deadlocked threads into cycles of lock ownership. */
+	private static List<List<ThreadInfo>> cycles(final long[] deadlocked,
+		final Map<Long, ThreadInfo> infoById)
+	{
+		final List<List<ThreadInfo>> cycles = new ArrayList<List<ThreadInfo>>();
+		final Set<Long> seen = new HashSet<Long>();
+		final long[] ids = deadlocked.clone();
+		Arrays.sort(ids);
+		for (final long id : ids) {
+			if (seen.contains(id)) continue;
+			// follow lock owners until a thread repeats
+			final List<ThreadInfo> path = new ArrayList<ThreadInfo>();
+			final List<Long> pathIds = new ArrayList<Long>();
+			ThreadInfo info = infoById.get(id);
+			while (info != null && !seen.contains(info.getThreadId()) && !pathIds
+				.contains(info.getThreadId()))
+			{
+				path.add(info);
+				pathIds.add(info.getThreadId());
+				info = infoById.get(info.getLockOwnerId());
+			}
+			seen.addAll(pathIds);
+			if (info == null || !pathIds.contains(info.getThreadId())) {
+				continue; // blocked on a cycle found earlier
+			}
+			// keep only the cycle itself, not the threads leading into it
+			cycles.add(path.subList(pathIds.indexOf(info.getThreadId()), path
+				.size()));
+		}
+		return cycles;
+	}
+
+	private static void dumpThread(final ThreadInfo info, final long cpuTime,
+		final long userTime, final StringBuilder sb)
+	{
+		sb.append("\"");
+		sb.append(info.getThreadName());
+		sb.append("\" id=");
+		sb.append(info.getThreadId());
+		if (info.isSuspended()) sb.append(" SUSPENDED");
+		if (info.isInNative()) sb.append(" (in native)");
+		if (cpuTime >= 0) {
+			sb.append(" cpu=");
+			sb.append(millis(cpuTime));
+			sb.append(" user=");
+			sb.append(millis(userTime));
+		}
+		sb.append(NL);
+
+		sb.append("   java.lang.Thread.State: ");
+		sb.append(info.getThreadState());
+		sb.append(NL);
+		sb.append("   blocked ");
+		sb.append(info.getBlockedCount());
+		sb.append(" times");
+		if (info.getBlockedTime() >= 0) {
+			sb.append(" (" + info.getBlockedTime() + " ms)");
+		}
+		sb.append(", waited ");
+		sb.append(info.getWaitedCount());
+		sb.append(" times");
+		if (info.getWaitedTime() >= 0) {
+			sb.append(" (" + info.getWaitedTime() + " ms)");
+		}
+		sb.append(NL);
+
+		final StackTraceElement[] trace = info.getStackTrace();
+		final MonitorInfo[] monitors = info.getLockedMonitors();
+		for (int i = 0; i < trace.length; i++) {
+			sb.append("\tat ");
+			sb.append(trace[i]);
+			sb.append(NL);
+			if (i == 0 && info.getLockInfo() != null) {
+				// the lock this thread is blocked on or waiting for
+				final boolean blocked =
+					info.getThreadState() == Thread.State.BLOCKED;
+				sb.append(blocked ? "\t- waiting to lock " : "\t- waiting on ");
+				sb.append(lock(info.getLockInfo()));
+				if (info.getLockOwnerName() != null) {
+					sb.append(" owned by \"" + info.getLockOwnerName() + "\" id=" +
+						info.getLockOwnerId());
+				}
+				sb.append(NL);
+			}
+			for (final MonitorInfo monitor : monitors) {
+				if (monitor.getLockedStackDepth() != i) continue;
+				sb.append("\t- locked ");
+				sb.append(lock(monitor));
+				sb.append(NL);
+			}
+		}
+
+		final LockInfo[] synchronizers = info.getLockedSynchronizers();
+		if (synchronizers.length > 0) {
+			sb.append("   Locked ownable synchronizers:");
+			sb.append(NL);
+			for (final LockInfo lock : synchronizers) {
+				sb.append("\t- ");
+				sb.append(lock(lock));
+				sb.append(NL);
+			}
+		}
+		sb.append(NL);
+	}
+
+	/** Gets {@code HotSpotDiagnosticMXBean.dumpThreads}, if available. */
+	private static Method dumpThreadsMethod() {
+		try {
+			final Class<?> beanClass =
+				Class.forName("com.sun.management.HotSpotDiagnosticMXBean");
+			final Class<?> formatClass = Class.forName(
+				"com.sun.management.HotSpotDiagnosticMXBean$ThreadDumpFormat");
+			return beanClass.getMethod("dumpThreads", String.class, formatClass);
+		}
+		catch (final ClassNotFoundException | NoSuchMethodException exc) {
+			return null; // JDK 20 or earlier, or not HotSpot
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static Object diagnosticBean() throws IOException {
+		try {
+			final Class beanClass =
+				Class.forName("com.sun.management.HotSpotDiagnosticMXBean");
+			return ManagementFactory.getPlatformMXBean(beanClass);
+		}
+		catch (final ClassNotFoundException exc) {
+			throw new IOException(exc);
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static Object valueOf(final Class<?> enumClass, final String name) {
+		return Enum.valueOf((Class) enumClass, name);
+	}
+
+	/** Streams the platform threads as text, one thread at a time. */
+	private static void writeText(final Writer out) throws IOException {
+		out.write(processId() + NL + new Date() + NL + System.getProperty(
+			"java.runtime.version") + NL + NL);
+		final StringBuilder sb = new StringBuilder();
+		for (final Map.Entry<Thread, StackTraceElement[]> entry : Thread
+			.getAllStackTraces().entrySet())
+		{
+			final Thread t = entry.getKey();
+			sb.setLength(0);
+			sb.append("#");
+			sb.append(t.getId());
+			sb.append(" \"");
+			sb.append(t.getName());
+			sb.append("\"");
+			sb.append(NL);
+			for (final StackTraceElement element : entry.getValue()) {
+				sb.append("      ");
+				sb.append(element);
+				sb.append(NL);
+			}
+			sb.append(NL);
+			out.write(sb.toString());
+		}
+	}
+
+	/**
+	 * Streams the platform threads as JSON, one thread at a time, in the layout
+	 * used by the JVM's own JSON thread dumps.
+	 */
+	private static void writeJSON(final Writer out) throws IOException {
+		final Map<Thread, StackTraceElement[]> stackTraces =
+			Thread.getAllStackTraces();
+		final JSONWriter json = new JSONWriter(out);
+		json.beginObject().name("threadDump").beginObject();
+		json.property("processId", processId());
+		json.property("time", new Date().toString());
+		json.property("runtimeVersion", System.getProperty(
+			"java.runtime.version"));
+		json.name("threadContainers").beginArray().beginObject();
+		json.property("container", "<root>");
+		json.property("parent", null);
+		json.property("owner", null);
+		json.name("threads").beginArray();
+		for (final Map.Entry<Thread, StackTraceElement[]> entry : stackTraces
+			.entrySet())
+		{
+			final Thread t = entry.getKey();
+			json.beginObject();
+			json.property("tid", String.valueOf(t.getId()));
+			json.property("name", t.getName());
+			json.name("stack").beginArray();
+			for (final StackTraceElement element : entry.getValue()) {
+				json.value(element.toString());
+			}
+			json.endArray();
+			json.endObject();
+		}
+		json.endArray();
+		json.property("threadCount", String.valueOf(stackTraces.size()));
+		json.endObject().endArray();
+		json.endObject().endObject();
+		json.flush();
+	}
+
+	private static String processId() {
+		final String name = ManagementFactory.getRuntimeMXBean().getName();
+		final int at = name.indexOf('@');
+		return at < 0 ? name : name.substring(0, at);
+	}
+
+	private static String lock(final LockInfo lock) {
+		return "<0x" + Integer.toHexString(lock.getIdentityHashCode()) +
+			"> (a " + lock.getClassName() + ")";
+	}
+
+	private static String millis(final long nanos) {
+		return String.format("%.2fms", nanos / 1e6);
+	}
+
+}
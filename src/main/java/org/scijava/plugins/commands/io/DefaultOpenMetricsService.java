@@ -0,0 +1,93 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.scijava.io.IOPlugin;
+import org.scijava.plugin.Plugin;
+import org.scijava.service.AbstractService;
+import org.scijava.service.Service;
+
+/**
+ * Default service for collecting statistics of opened files.
+ */
+@Plugin(type = Service.class)
+public class DefaultOpenMetricsService extends AbstractService implements
+	OpenMetricsService
+{
+
+	private final ConcurrentMap<String, OpenMetrics> metrics =
+		new ConcurrentHashMap<String, OpenMetrics>();
+
+	// -- OpenMetricsService methods --
+
+	@Override
+	public void record(final IOPlugin<?> opener, final long lookupNanos,
+		final long openNanos, final long bytes, final boolean succeeded)
+	{
+		final String name = opener == null ? NO_OPENER : //
+			opener.getClass().getName();
+		OpenMetrics m = metrics.get(name);
+		if (m == null) {
+			final OpenMetrics newM = new OpenMetrics(name);
+			m = metrics.putIfAbsent(name, newM);
+			if (m == null) m = newM;
+		}
+		m.record(lookupNanos, openNanos, bytes, succeeded);
+	}
+
+	@Override
+	public List<OpenMetrics> getMetrics() {
+		final List<OpenMetrics> list = new ArrayList<OpenMetrics>(metrics.values());
+		Collections.sort(list, new Comparator<OpenMetrics>() {
+
+			@Override
+			public int compare(final OpenMetrics m1, final OpenMetrics m2) {
+				return Long.compare(m2.getOpenNanos().getTotal(), m1.getOpenNanos()
+					.getTotal());
+			}
+		});
+		return list;
+	}
+
+	@Override
+	public void reset() {
+		metrics.clear();
+	}
+
+}
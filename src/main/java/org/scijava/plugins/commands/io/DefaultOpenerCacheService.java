@@ -0,0 +1,211 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.scijava.event.EventHandler;
+import org.scijava.io.IOPlugin;
+import org.scijava.io.IOService;
+import org.scijava.io.location.Location;
+import org.scijava.io.location.LocationService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.plugin.event.PluginsListEvent;
+import org.scijava.service.AbstractService;
+import org.scijava.service.Service;
+
+/**
+ * Default service for remembering which {@link IOPlugin} opens which kind of
+ * source.
+ * <p>
+ * The cache holds up to {@link #MAX_ENTRIES} kinds of source, evicting the
+ * least recently used, and is cleared whenever plugins are added to or
+ * removed from the plugin index, since a new plugin may take precedence.
+ * </p>
+ * <p>
+ * After a full lookup, every other opener is asked whether it supports the
+ * source too. Only when none does is the opener remembered for the source's
+ * kind; kinds which several openers support are marked as ambiguous, and
+ * always get the full lookup.
+ * </p>
+ */
+@Plugin(type = Service.class)
+public class DefaultOpenerCacheService extends AbstractService implements
+	OpenerCacheService
+{
+
+	// -- Constants --
+
+	/** Maximum number of kinds of source whose openers are remembered. */
+	private static final int MAX_ENTRIES = 256;
+
+	/** Number of leading bytes of a local file which identify its kind. */
+	private static final int SIGNATURE_LENGTH = 8;
+
+	// -- Parameters --
+
+	@Parameter
+	private IOService ioService;
+
+	@Parameter
+	private LocationService locationService;
+
+	// -- Fields --
+
+	/** Openers by kind of source; null for kinds several openers support. */
+	private final Map<String, IOPlugin<?>> openers =
+		new LinkedHashMap<String, IOPlugin<?>>(16, 0.75f, true)
+		{
+
+			@Override
+			protected boolean removeEldestEntry(
+				final Map.Entry<String, IOPlugin<?>> eldest)
+			{
+				return size() > MAX_ENTRIES;
+			}
+		};
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	// -- OpenerCacheService methods --
+
+	@Override
+	public IOPlugin<?> getOpener(final String source) throws IOException {
+		final String key = key(source);
+		final boolean known;
+		final IOPlugin<?> cached;
+		synchronized (openers) {
+			known = openers.containsKey(key);
+			cached = openers.get(key);
+		}
+		if (cached != null && cached.supportsOpen(source)) {
+			hits.incrementAndGet();
+			return cached;
+		}
+		misses.incrementAndGet();
+		final IOPlugin<?> opener = ioService.getOpener(source);
+		// NB: Kinds already known to be ambiguous need no further check.
+		if (opener != null && !(known && cached == null)) {
+			final boolean unique = isOnlyOpener(opener, source);
+			synchronized (openers) {
+				openers.put(key, unique ? opener : null);
+			}
+		}
+		return opener;
+	}
+
+	@Override
+	public void clear() {
+		synchronized (openers) {
+			openers.clear();
+		}
+	}
+
+	@Override
+	public long getHits() {
+		return hits.get();
+	}
+
+	@Override
+	public long getMisses() {
+		return misses.get();
+	}
+
+	// -- Event handlers --
+
+	/** Forgets all openers when plugins are added or removed. */
+	@EventHandler
+	protected void onEvent(final PluginsListEvent evt) {
+		clear();
+	}
+
+	// -- Helper methods --
+
+	/** Gets whether no opener other than the given one supports the source. */
+	private boolean isOnlyOpener(final IOPlugin<?> opener, final String source)
+		throws IOException
+	{
+		final Location location;
+		try {
+			location = locationService.resolve(source);
+		}
+		catch (final URISyntaxException exc) {
+			throw new IOException(exc);
+		}
+		for (final IOPlugin<?> other : ioService.getInstances()) {
+			if (other != opener && other.supportsOpen(location)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the kind of the given source: its full suffix (e.g.
+	 * {@code ome.tif}), followed by the hex digits of its leading bytes when it
+	 * is a readable local file.
+	 */
+	private static String key(final String source) {
+		final int slash = Math.max(source.lastIndexOf('/'), //
+			source.lastIndexOf(File.separatorChar));
+		final int dot = source.indexOf('.', slash + 1);
+		final String ext = dot < 0 ? "" : //
+			source.substring(dot + 1).toLowerCase(Locale.ROOT);
+
+		final File file = new File(source);
+		if (!file.isFile()) return ext;
+		final StringBuilder sb = new StringBuilder(ext).append(':');
+		final byte[] signature = new byte[SIGNATURE_LENGTH];
+		try (final InputStream in = new FileInputStream(file)) {
+			// NB: A local file yields all requested bytes, up to its end, at once.
+			final int n = in.read(signature);
+			for (int i = 0; i < n; i++) {
+				final int b = signature[i] & 0xff;
+				sb.append(Character.forDigit(b >> 4, 16));
+				sb.append(Character.forDigit(b & 0xf, 16));
+			}
+		}
+		catch (final IOException exc) {
+			return ext;
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,264 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.scijava.event.EventHandler;
+import org.scijava.io.RecentFileService;
+import org.scijava.log.LogService;
+import org.scijava.module.event.ModuleEvent;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.prefs.PrefService;
+import org.scijava.service.AbstractService;
+import org.scijava.service.Service;
+
+/**
+ * Default service for prefetching recently opened files.
+ * <p>
+ * Files are read on a single daemon thread of minimum priority, at most
+ * {@link #MAX_BYTES} of each, in chunks. Before each chunk, the thread waits
+ * until no module has started or finished for {@link #IDLE_MILLIS}, so that
+ * prefetching keeps out of the way of the user's work.
+ * </p>
+ */
+@Plugin(type = Service.class)
+public class DefaultRecentFilePrefetchService extends AbstractService
+	implements RecentFilePrefetchService
+{
+
+	// -- Constants --
+
+	/** Milliseconds without module activity after which the app is idle. */
+	private static final long IDLE_MILLIS = 5000;
+
+	/** Milliseconds after startup before prefetching begins. */
+	private static final long STARTUP_DELAY = 10000;
+
+	/** Maximum number of bytes read from each file. */
+	private static final long MAX_BYTES = 256 * 1024 * 1024;
+
+	private static final int CHUNK_SIZE = 1024 * 1024;
+
+	private static final String ENABLED = "enabled";
+	private static final String COUNT = "count";
+	private static final String RESOLVE_OPENERS = "resolveOpeners";
+
+	// -- Parameters --
+
+	@Parameter
+	private RecentFileService recentFileService;
+
+	@Parameter
+	private OpenerCacheService openerCacheService;
+
+	@Parameter
+	private PrefService prefService;
+
+	@Parameter(required = false)
+	private LogService log;
+
+	// -- Fields --
+
+	private ScheduledExecutorService executor;
+
+	/** The prefetch underway or scheduled, if any. */
+	private Future<?> pending;
+
+	private volatile long lastActivity = System.currentTimeMillis();
+
+	// -- RecentFilePrefetchService methods --
+
+	@Override
+	public boolean isEnabled() {
+		return prefService.getBoolean(getClass(), ENABLED, false);
+	}
+
+	@Override
+	public int getCount() {
+		return prefService.getInt(getClass(), COUNT, 5);
+	}
+
+	@Override
+	public boolean isResolvingOpeners() {
+		return prefService.getBoolean(getClass(), RESOLVE_OPENERS, true);
+	}
+
+	@Override
+	public void configure(final boolean enabled, final int count,
+		final boolean resolveOpeners)
+	{
+		prefService.put(getClass(), ENABLED, enabled);
+		prefService.put(getClass(), COUNT, count);
+		prefService.put(getClass(), RESOLVE_OPENERS, resolveOpeners);
+		if (enabled) prefetch();
+		else cancel();
+	}
+
+	@Override
+	public synchronized Future<?> prefetch() {
+		// NB: Restart with the current settings, rather than queue behind.
+		cancel();
+		pending = executor().submit(new Runnable() {
+
+			@Override
+			public void run() {
+				prefetchRecentFiles();
+			}
+		});
+		return pending;
+	}
+
+	// -- Service methods --
+
+	@Override
+	public synchronized void initialize() {
+		if (!isEnabled()) return;
+		pending = executor().schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				prefetchRecentFiles();
+			}
+		}, STARTUP_DELAY, TimeUnit.MILLISECONDS);
+	}
+
+	// -- Disposable methods --
+
+	@Override
+	public synchronized void dispose() {
+		if (executor != null) executor.shutdownNow();
+		executor = null;
+		pending = null;
+	}
+
+	// -- Event handlers --
+
+	/** Notes module activity, during which prefetching pauses. */
+	@EventHandler
+	protected void onEvent(final ModuleEvent evt) {
+		lastActivity = System.currentTimeMillis();
+	}
+
+	// -- Helper methods --
+
+	private synchronized ScheduledExecutorService executor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactory()
+				{
+
+					@Override
+					public Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r, "SciJava-Recent-File-Prefetcher");
+						t.setDaemon(true);
+						t.setPriority(Thread.MIN_PRIORITY);
+						return t;
+					}
+				});
+		}
+		return executor;
+	}
+
+	/** Cancels the prefetch underway or scheduled, if any. */
+	private synchronized void cancel() {
+		if (pending != null) pending.cancel(true);
+		pending = null;
+	}
+
+	private void prefetchRecentFiles() {
+		// NB: The most recently opened files are at the end of the list.
+		final List<String> recent = recentFileService.getRecentFiles();
+		final boolean resolveOpeners = isResolvingOpeners();
+		final int last = Math.max(recent.size() - getCount(), 0);
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+		try {
+			for (int i = recent.size() - 1; i >= last; i--) {
+				final File file = new File(recent.get(i));
+				if (!file.isFile()) continue;
+				try {
+					prefetch(file, buffer);
+					if (resolveOpeners) {
+						awaitIdle();
+						openerCacheService.getOpener(file.getAbsolutePath());
+					}
+				}
+				catch (final IOException exc) {
+					if (log != null) log.debug("Cannot prefetch " + file, exc);
+				}
+			}
+		}
+		catch (final InterruptedException exc) {
+			// NB: The prefetch was canceled, or the service is being disposed.
+		}
+	}
+
+	/** Reads the start of the given file, discarding the data. */
+	private void prefetch(final File file, final ByteBuffer buffer)
+		throws IOException, InterruptedException
+	{
+		try (final FileChannel channel = FileChannel.open(file.toPath(),
+			StandardOpenOption.READ))
+		{
+			long total = 0;
+			while (total < MAX_BYTES) {
+				awaitIdle();
+				buffer.clear();
+				final int n = channel.read(buffer);
+				if (n < 0) break;
+				total += n;
+			}
+		}
+	}
+
+	/** Waits until no module has started or finished for a while. */
+	private void awaitIdle() throws InterruptedException {
+		while (true) {
+			if (Thread.interrupted()) throw new InterruptedException();
+			final long idle = System.currentTimeMillis() - lastActivity;
+			if (idle >= IDLE_MILLIS) return;
+			Thread.sleep(IDLE_MILLIS - idle);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import java.io.IOException;
+
+import org.scijava.io.IOPlugin;
+
+/**
+ * An {@link IOPlugin} which can also open sources lazily, returning data whose
+ * contents are read on demand (e.g., from a memory-mapped file) rather than
+ * loaded up front. A lazy open should cost no more than parsing the source's
+ * metadata, and the returned data should hold a bounded amount of it in
+ * memory, regardless of the size of the source.
+ * <p>
+ * {@link OpenFile} and {@link OpenFiles} use {@link #openLazy(String)} when
+ * asked to open lazily, and fall back to {@link #open(String)} for openers
+ * which do not implement this interface.
+ * </p>
+ */
+public interface LazyOpener<D> extends IOPlugin<D> {
+
+	/**
+	 * Opens data from the given source, deferring the reading of its contents
+	 * until they are needed.
+	 * 
+	 * @throws IOException If the source's metadata cannot be read.
+	 */
+	D openLazy(String source) throws IOException;
+
+}
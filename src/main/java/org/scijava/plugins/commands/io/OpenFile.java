@@ -33,8 +33,15 @@ package org.scijava.plugins.commands.io;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.scijava.ItemIO;
+import org.scijava.ItemVisibility;
+import org.scijava.app.StatusService;
 import org.scijava.command.Command;
 import org.scijava.command.ContextCommand;
 import org.scijava.io.IOPlugin;
@@ -45,11 +52,33 @@ import org.scijava.plugin.Attr;
 import org.scijava.plugin.Menu;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.thread.ThreadService;
 import org.scijava.ui.DialogPrompt;
 import org.scijava.ui.UIService;
 
 /**
  * Opens the selected file.
+ * <p>
+ * Sources other than small local files are opened on a separate thread,
+ * while this command shows its status through the {@link StatusService} and
+ * watches for cancellation. Since {@link IOPlugin}s report no progress, the
+ * status shows only the source's size and the elapsed time.
+ * {@link #openAsync()} runs the whole command in the background, returning a
+ * {@link Future} of the data.
+ * </p>
+ * <p>
+ * Canceling the command, or interrupting its thread, stops waiting for the
+ * open, which then ends as if the opener had declined the file. It does
+ * <em>not</em> stop the opener: its thread is interrupted, but most openers
+ * never check for interruption, so the plugin may keep running, reading the
+ * source and holding its memory, until it finishes and its result is
+ * discarded.
+ * </p>
+ * <p>
+ * In lazy mode, openers which are {@link LazyOpener}s read only the source's
+ * metadata up front, so local files are opened on the calling thread whatever
+ * their size; other openers load the data in full, as usual.
+ * </p>
  * 
  * @author Curtis Rueden
  * @author Mark Hiner
@@ -62,18 +91,43 @@ import org.scijava.ui.UIService;
 	attrs = { @Attr(name = "no-legacy") })
 public class OpenFile extends ContextCommand {
 
+	/** Size below which local files are opened on the calling thread. */
+	private static final long BACKGROUND_THRESHOLD = 16 * 1024 * 1024;
+
+	/** Milliseconds between status updates of a background open. */
+	private static final long STATUS_INTERVAL = 250;
+
+	private static final long MB = 1024 * 1024;
+
 	@Parameter
 	private LogService log;
 
+	@Parameter
+	private StatusService statusService;
+
+	@Parameter
+	private ThreadService threadService;
+
 	@Parameter
 	private IOService ioService;
 
+	@Parameter(required = false)
+	private OpenerCacheService openerCacheService;
+
+	@Parameter(required = false)
+	private OpenMetricsService openMetricsService;
+
 	@Parameter
 	private UIService uiService;
 
 	@Parameter(label = "File to open")
 	private File inputFile;
 
+	// NB: Invisible, so that File > Open still presents just a file chooser.
+	@Parameter(label = "Open lazily, if supported",
+		visibility = ItemVisibility.INVISIBLE, required = false, persist = false)
+	private boolean lazy;
+
 	@Parameter(type = ItemIO.OUTPUT, label = "Data")
 	private Object data;
 
@@ -90,14 +144,29 @@ public class OpenFile extends ContextCommand {
 			// file path as a string to the IOService so that the location
 			// resolution mechanism can construct the correct Location object.
 			final String source = inputFile.getAbsolutePath();
-			final IOPlugin<?> opener = ioService.getOpener(source);
+			final long size = inputFile.isFile() ? inputFile.length() : -1;
+			final long start = System.nanoTime();
+			final IOPlugin<?> opener = getOpener(ioService, openerCacheService,
+				source);
+			final long lookup = System.nanoTime() - start;
 			if (opener == null) {
+				record(null, lookup, 0, size, false);
 				error("No appropriate format found: " + source);
 				return;
 			}
-			data = opener.open(source);
+			final boolean lazyOpen = lazy && opener instanceof LazyOpener;
+			final boolean inline = size >= 0 && (lazyOpen || //
+				size < BACKGROUND_THRESHOLD);
+			try {
+				data = inline ? open(opener, source, lazy) : //
+					openInBackground(opener, source);
+			}
+			finally {
+				record(opener, lookup, System.nanoTime() - start - lookup, size,
+					data != null);
+			}
 			if (data == null) {
-				cancel(null);
+				if (!isCanceled()) cancel(null);
 				return;
 			}
 		}
@@ -115,6 +184,14 @@ public class OpenFile extends ContextCommand {
 		this.inputFile = inputFile;
 	}
 
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	public void setLazy(final boolean lazy) {
+		this.lazy = lazy;
+	}
+
 	public Object getData() {
 		return data;
 	}
@@ -123,8 +200,111 @@ public class OpenFile extends ContextCommand {
 		this.data = data;
 	}
 
+	/**
+	 * Runs this command on another thread. Canceling the returned future, with
+	 * interruption, cancels the command; as for any cancellation, the opener
+	 * itself may keep running until it finishes.
+	 * 
+	 * @return A future of the opened data, which is null if the open was
+	 *         canceled or failed.
+	 */
+	public Future<Object> openAsync() {
+		return threadService.run(new Callable<Object>() {
+
+			@Override
+			public Object call() {
+				run();
+				return data;
+			}
+		});
+	}
+
+	// -- Utility methods --
+
+	/**
+	 * Gets the opener for the given source, through the opener cache if there
+	 * is one.
+	 */
+	static IOPlugin<?> getOpener(final IOService ioService,
+		final OpenerCacheService openerCacheService, final String source)
+		throws IOException
+	{
+		if (openerCacheService == null) return ioService.getOpener(source);
+		return openerCacheService.getOpener(source);
+	}
+
+	/**
+	 * Opens the given source, lazily if requested and supported by the opener.
+	 */
+	static Object open(final IOPlugin<?> opener, final String source,
+		final boolean lazy) throws IOException
+	{
+		if (lazy && opener instanceof LazyOpener) {
+			return ((LazyOpener<?>) opener).openLazy(source);
+		}
+		return opener.open(source);
+	}
+
 	// -- Helper methods --
 
+	/**
+	 * Opens the source on another thread, reporting progress until it is done.
+	 * 
+	 * @return The opened data, or null if the open was canceled.
+	 */
+	private Object openInBackground(final IOPlugin<?> opener,
+		final String source) throws IOException
+	{
+		final Future<Object> future = threadService.run(new Callable<Object>() {
+
+			@Override
+			public Object call() throws IOException {
+				return open(opener, source, lazy);
+			}
+		});
+		final String what = inputFile.getName() + (inputFile.isFile() ? " (" +
+			inputFile.length() / MB + " MB)" : "");
+		final long start = System.currentTimeMillis();
+		boolean statusShown = false;
+		try {
+			while (!isCanceled()) {
+				try {
+					return future.get(STATUS_INTERVAL, TimeUnit.MILLISECONDS);
+				}
+				catch (final TimeoutException exc) {
+					final long elapsed = System.currentTimeMillis() - start;
+					statusService.showStatus("Opening " + what + ": " + elapsed /
+						1000 + " s");
+					statusShown = true;
+				}
+			}
+			return null;
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch (final ExecutionException exc) {
+			final Throwable cause = exc.getCause();
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new IOException(cause);
+		}
+		finally {
+			// NB: Abandon the open, if still underway.
+			future.cancel(true);
+			if (statusShown) statusService.clearStatus();
+		}
+	}
+
+	/** Records the open's metrics, if there is a service to keep them. */
+	private void record(final IOPlugin<?> opener, final long lookupNanos,
+		final long openNanos, final long bytes, final boolean success)
+	{
+		if (openMetricsService == null) return;
+		openMetricsService.record(opener, lookupNanos, openNanos, bytes, success);
+	}
+
 	private void error(final String message) {
 		uiService.showDialog(message, DialogPrompt.MessageType.ERROR_MESSAGE);
 	}
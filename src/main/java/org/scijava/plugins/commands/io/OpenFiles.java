@@ -0,0 +1,268 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.scijava.ItemVisibility;
+import org.scijava.command.Command;
+import org.scijava.command.ContextCommand;
+import org.scijava.event.EventService;
+import org.scijava.io.IOPlugin;
+import org.scijava.io.IOService;
+import org.scijava.io.event.DataOpenedEvent;
+import org.scijava.io.location.Location;
+import org.scijava.io.location.LocationService;
+import org.scijava.log.LogService;
+import org.scijava.menu.MenuConstants;
+import org.scijava.plugin.Attr;
+import org.scijava.plugin.Menu;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.thread.ThreadService;
+import org.scijava.ui.DialogPrompt;
+import org.scijava.ui.UIService;
+
+/**
+ * Opens the selected files, several at a time.
+ * <p>
+ * Each file is opened as {@link OpenFile} would, but up to
+ * {@link #getMaxParallel()} files are opened concurrently. Each result is
+ * shown, and announced with a {@link DataOpenedEvent}, as soon as its file
+ * finishes, rather than once all are done. Files which cannot be opened are
+ * reported together in a single dialog at the end. Files for which the opener
+ * returned no data are skipped without error, as {@link OpenFile} does for a
+ * single file. As with {@link OpenFile}, files are opened lazily where
+ * possible if {@link #setLazy(boolean)} is set.
+ * </p>
+ */
+@Plugin(type = Command.class, iconPath = "/icons/commands/folder_picture.png",
+	menu = {
+		@Menu(label = MenuConstants.FILE_LABEL, weight = MenuConstants.FILE_WEIGHT,
+			mnemonic = MenuConstants.FILE_MNEMONIC),
+		@Menu(label = "Open Multiple...", weight = 2, mnemonic = 'm') },
+	attrs = { @Attr(name = "no-legacy") })
+public class OpenFiles extends ContextCommand {
+
+	@Parameter
+	private LogService log;
+
+	@Parameter
+	private IOService ioService;
+
+	@Parameter(required = false)
+	private OpenerCacheService openerCacheService;
+
+	@Parameter(required = false)
+	private OpenMetricsService openMetricsService;
+
+	@Parameter
+	private ThreadService threadService;
+
+	@Parameter
+	private EventService eventService;
+
+	@Parameter
+	private LocationService locationService;
+
+	@Parameter
+	private UIService uiService;
+
+	@Parameter(label = "Files to open")
+	private File[] inputFiles;
+
+	@Parameter(label = "Maximum files opened at once", min = "1")
+	private int maxParallel = 4;
+
+	@Parameter(label = "Open lazily, if supported",
+		visibility = ItemVisibility.INVISIBLE, required = false, persist = false)
+	private boolean lazy;
+
+	/** The opened data, in the order the files finished opening. */
+	private final List<Object> data = new ArrayList<Object>();
+
+	@Override
+	public void run() {
+		data.clear();
+		if (inputFiles == null || inputFiles.length == 0) return;
+
+		final int threads = Math.max(1, Math.min(maxParallel, inputFiles.length));
+		final ExecutorService pool = //
+			Executors.newFixedThreadPool(threads, threadService);
+		final CompletionService<Object> completion =
+			new ExecutorCompletionService<Object>(pool);
+		final Map<Future<Object>, String> sources =
+			new HashMap<Future<Object>, String>();
+		final List<String> errors = new ArrayList<String>();
+		try {
+			for (final File file : inputFiles) {
+				// NB: Pass the absolute path, for the reasons given in OpenFile.
+				final String source = file.getAbsolutePath();
+				sources.put(completion.submit(new Callable<Object>() {
+
+					@Override
+					public Object call() throws IOException {
+						return open(source);
+					}
+				}), source);
+			}
+			for (int i = 0; i < sources.size(); i++) {
+				final Future<Object> future = completion.take();
+				final String source = sources.get(future);
+				try {
+					final Object result = future.get();
+					if (result == null) {
+						// NB: The opener declined the file, e.g. its user canceled.
+						log.debug(source + ": The opener returned no data");
+						continue;
+					}
+					data.add(result);
+					publishOpened(source, result);
+					uiService.show(new File(source).getName(), result);
+				}
+				catch (final ExecutionException exc) {
+					final Throwable cause = exc.getCause();
+					log.error(source, cause);
+					errors.add(source + ": " + cause.getMessage());
+				}
+			}
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			cancel("Interrupted after opening " + data.size() + " of " +
+				inputFiles.length + " files");
+		}
+		finally {
+			pool.shutdownNow();
+		}
+
+		if (!errors.isEmpty()) {
+			final StringBuilder sb = new StringBuilder();
+			sb.append("Did not open " + errors.size() + " of " +
+				inputFiles.length + " files:");
+			for (final String error : errors) {
+				sb.append("\n" + error);
+			}
+			uiService.showDialog(sb.toString(),
+				DialogPrompt.MessageType.ERROR_MESSAGE);
+		}
+	}
+
+	public File[] getInputFiles() {
+		return inputFiles;
+	}
+
+	public void setInputFiles(final File[] inputFiles) {
+		this.inputFiles = inputFiles;
+	}
+
+	public int getMaxParallel() {
+		return maxParallel;
+	}
+
+	public void setMaxParallel(final int maxParallel) {
+		this.maxParallel = maxParallel;
+	}
+
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	public void setLazy(final boolean lazy) {
+		this.lazy = lazy;
+	}
+
+	/** Gets the opened data, in the order the files finished opening. */
+	public List<Object> getData() {
+		return Collections.unmodifiableList(data);
+	}
+
+	// -- Helper methods --
+
+	/** Announces the opened data, as {@link IOService#open} would. */
+	private void publishOpened(final String source, final Object result) {
+		final Location location;
+		try {
+			location = locationService.resolve(source);
+		}
+		catch (final URISyntaxException exc) {
+			log.warn("Cannot resolve " + source, exc);
+			return;
+		}
+		eventService.publish(new DataOpenedEvent(location, result));
+	}
+
+	/** Records the open's metrics, if there is a service to keep them. */
+	private void record(final IOPlugin<?> opener, final long lookupNanos,
+		final long openNanos, final long bytes, final boolean success)
+	{
+		if (openMetricsService == null) return;
+		openMetricsService.record(opener, lookupNanos, openNanos, bytes, success);
+	}
+
+	private Object open(final String source) throws IOException {
+		final File file = new File(source);
+		final long size = file.isFile() ? file.length() : -1;
+		final long start = System.nanoTime();
+		final IOPlugin<?> opener = //
+			OpenFile.getOpener(ioService, openerCacheService, source);
+		final long lookup = System.nanoTime() - start;
+		if (opener == null) {
+			record(null, lookup, 0, size, false);
+			throw new IOException("No appropriate format found");
+		}
+		Object result = null;
+		try {
+			result = OpenFile.open(opener, source, lazy);
+		}
+		finally {
+			record(opener, lookup, System.nanoTime() - start - lookup, size,
+				result != null);
+		}
+		return result;
+	}
+
+}
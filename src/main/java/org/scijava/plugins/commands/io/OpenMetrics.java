@@ -0,0 +1,107 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import org.scijava.io.IOPlugin;
+import org.scijava.plugins.commands.util.Histogram;
+
+/**
+ * Statistics of the files opened by one {@link IOPlugin}, as recorded by the
+ * {@link OpenMetricsService}.
+ */
+public class OpenMetrics {
+
+	private final String opener;
+	private final Histogram lookupNanos = new Histogram();
+	private final Histogram openNanos = new Histogram();
+	private final Histogram bytes = new Histogram();
+	private long failures;
+	private long sizedBytes, sizedOpenNanos;
+
+	public OpenMetrics(final String opener) {
+		this.opener = opener;
+	}
+
+	/** Gets the class name of the opener. */
+	public String getOpener() {
+		return opener;
+	}
+
+	/** Gets the times spent finding the opener, in nanoseconds. */
+	public Histogram getLookupNanos() {
+		return lookupNanos;
+	}
+
+	/** Gets the times spent in {@link IOPlugin#open}, in nanoseconds. */
+	public Histogram getOpenNanos() {
+		return openNanos;
+	}
+
+	/**
+	 * Gets the sizes of the sources opened successfully, where known, in bytes.
+	 */
+	public Histogram getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Gets the rate at which sources were opened, in bytes per second: the
+	 * total size of the sources opened successfully, where known, over the
+	 * time spent opening those same sources; or NaN if there are none.
+	 */
+	public synchronized double getThroughput() {
+		if (sizedOpenNanos == 0) return Double.NaN;
+		return sizedBytes / (sizedOpenNanos / 1e9);
+	}
+
+	/** Gets the number of opens which failed. */
+	public synchronized long getFailures() {
+		return failures;
+	}
+
+	/** Records one open. */
+	public void record(final long lookup, final long open, final long size,
+		final boolean succeeded)
+	{
+		lookupNanos.record(lookup);
+		openNanos.record(open);
+		if (succeeded && size >= 0) bytes.record(size);
+		synchronized (this) {
+			if (!succeeded) failures++;
+			else if (size >= 0) {
+				sizedBytes += size;
+				sizedOpenNanos += open;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import java.util.List;
+
+import org.scijava.io.IOPlugin;
+import org.scijava.service.SciJavaService;
+
+/**
+ * Interface for services that collect statistics of the files opened by
+ * {@link OpenFile} and {@link OpenFiles}, per {@link IOPlugin}, so that slow
+ * opens can be attributed to opener lookup, to I/O or to a particular format.
+ */
+public interface OpenMetricsService extends SciJavaService {
+
+	/** Name under which opens of sources no opener supports are recorded. */
+	String NO_OPENER = "(no opener)";
+
+	/**
+	 * Records one open.
+	 * 
+	 * @param opener The opener used, or null if none was found.
+	 * @param lookupNanos The time spent finding the opener.
+	 * @param openNanos The time spent opening the source.
+	 * @param bytes The size of the source, or -1 if unknown.
+	 * @param succeeded Whether the open produced data.
+	 */
+	void record(IOPlugin<?> opener, long lookupNanos, long openNanos,
+		long bytes, boolean succeeded);
+
+	/**
+	 * Gets the statistics recorded so far, one per opener, in descending order
+	 * of total open time.
+	 */
+	List<OpenMetrics> getMetrics();
+
+	/** Discards all statistics recorded so far. */
+	void reset();
+
+}
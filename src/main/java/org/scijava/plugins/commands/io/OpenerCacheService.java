@@ -0,0 +1,76 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import java.io.IOException;
+
+import org.scijava.io.IOPlugin;
+import org.scijava.io.IOService;
+import org.scijava.service.SciJavaService;
+
+/**
+ * Interface for services that remember which {@link IOPlugin} opened which
+ * kind of source, so that {@link IOService#getOpener(String)} need not ask
+ * every format plugin again for each file of a kind already seen.
+ * <p>
+ * Sources are grouped by their full suffix (e.g. {@code ome.tif}, not just
+ * {@code tif}) and, for local files, by their leading bytes, so that files of
+ * the same extension but differing format are told apart. An opener is only
+ * remembered for a kind of source when no other opener supports it, and is
+ * only used after it confirms that it supports the source; otherwise, the
+ * full lookup is done again. Openers are thus assumed to tell sources apart
+ * by their suffix and leading bytes: an opener that accepts some sources of
+ * a kind but not others, based on other criteria, may be overlooked in favor
+ * of a remembered one.
+ * </p>
+ */
+public interface OpenerCacheService extends SciJavaService {
+
+	/**
+	 * Gets the opener for the given source, as
+	 * {@link IOService#getOpener(String)} would.
+	 * 
+	 * @return The opener, or null if no {@link IOPlugin} supports the source.
+	 * @throws IOException If the source cannot be resolved.
+	 */
+	IOPlugin<?> getOpener(String source) throws IOException;
+
+	/** Forgets all remembered openers. */
+	void clear();
+
+	/** Gets how many lookups were answered from the cache. */
+	long getHits();
+
+	/** Gets how many lookups needed the full opener lookup. */
+	long getMisses();
+
+}
@@ -0,0 +1,83 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import org.scijava.command.Command;
+import org.scijava.io.RecentFileService;
+import org.scijava.menu.MenuConstants;
+import org.scijava.plugin.Attr;
+import org.scijava.plugin.Menu;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Configures the background prefetching of recently opened files. See
+ * {@link RecentFilePrefetchService}.
+ */
+@Plugin(type = Command.class, label = "Prefetch Recent", menu = {
+	@Menu(label = MenuConstants.FILE_LABEL, weight = MenuConstants.FILE_WEIGHT,
+		mnemonic = MenuConstants.FILE_MNEMONIC),
+	@Menu(label = "Open Recent", weight = 4, mnemonic = 'r'),
+	@Menu(label = "Prefetch in Background...",
+		weight = RecentFileService.MAX_FILES_SHOWN + 11, mnemonic = 'p') },
+	initializer = "initSettings", attrs = { @Attr(name = "no-legacy") })
+public class PrefetchRecentFiles implements Command {
+
+	@Parameter
+	private RecentFilePrefetchService prefetchService;
+
+	@Parameter(label = "Prefetch recent files at startup", persist = false)
+	private boolean enabled;
+
+	@Parameter(label = "Number of files to prefetch", min = "1",
+		max = "" + RecentFileService.MAX_FILES_SHOWN, persist = false)
+	private int count;
+
+	@Parameter(label = "Also find their file formats", persist = false)
+	private boolean resolveOpeners;
+
+	// -- Command methods --
+
+	@Override
+	public void run() {
+		prefetchService.configure(enabled, count, resolveOpeners);
+	}
+
+	// -- Initializers --
+
+	protected void initSettings() {
+		enabled = prefetchService.isEnabled();
+		count = prefetchService.getCount();
+		resolveOpeners = prefetchService.isResolvingOpeners();
+	}
+
+}
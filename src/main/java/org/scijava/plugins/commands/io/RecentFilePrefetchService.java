@@ -0,0 +1,77 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import java.util.concurrent.Future;
+
+import org.scijava.io.RecentFileService;
+import org.scijava.service.SciJavaService;
+
+/**
+ * Interface for services that read the most recently opened files ahead of
+ * time, in the background, so that reopening them is fast.
+ * <p>
+ * Prefetching reads the first files of the {@link RecentFileService}'s list,
+ * discarding the data, so that the operating system caches them; optionally,
+ * it also looks up their openers with the {@link OpenerCacheService}. When
+ * enabled, prefetching starts shortly after startup, and only reads while no
+ * modules are running.
+ * </p>
+ */
+public interface RecentFilePrefetchService extends SciJavaService {
+
+	/** Gets whether recent files are prefetched at startup. */
+	boolean isEnabled();
+
+	/** Gets how many of the most recent files are prefetched. */
+	int getCount();
+
+	/** Gets whether the openers of prefetched files are looked up too. */
+	boolean isResolvingOpeners();
+
+	/**
+	 * Changes and remembers the prefetch settings. If prefetching is enabled,
+	 * the recent files are prefetched right away, restarting any prefetch
+	 * underway; if disabled, any prefetch underway or scheduled is canceled.
+	 */
+	void configure(boolean enabled, int count, boolean resolveOpeners);
+
+	/**
+	 * Prefetches the recent files in the background, whether or not
+	 * prefetching at startup is enabled. Any prefetch already underway is
+	 * canceled first.
+	 * 
+	 * @return A future which completes when all files are prefetched.
+	 */
+	Future<?> prefetch();
+
+}
@@ -0,0 +1,127 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.util;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds, with
+ * four buckets per power of two. Reported percentiles are thus upper bounds
+ * within 25% of the true value, while the count, total and maximum are exact.
+ * <p>
+ * The histogram takes a fixed 2 KB regardless of how many values are
+ * recorded, and is safe for use from multiple threads.
+ * </p>
+ */
+public class Histogram {
+
+	/** Four buckets per power of two, up to 2^63. */
+	private static final int SUB_BUCKETS = 4;
+
+	private final long[] buckets = new long[64 * SUB_BUCKETS];
+	private long count, total, max;
+
+	/** Adds the given value to the histogram. */
+	public synchronized void record(final long value) {
+		buckets[bucket(value)]++;
+		count++;
+		total += value;
+		if (value > max) max = value;
+	}
+
+	/** Adds all values of the given histogram to this one. */
+	public void add(final Histogram h) {
+		// NB: Copy first, so as never to hold both locks, which could deadlock
+		// against a concurrent h.add(this).
+		final long[] hBuckets;
+		final long hCount, hTotal, hMax;
+		synchronized (h) {
+			hBuckets = h.buckets.clone();
+			hCount = h.count;
+			hTotal = h.total;
+			hMax = h.max;
+		}
+		synchronized (this) {
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] += hBuckets[i];
+			}
+			count += hCount;
+			total += hTotal;
+			max = Math.max(max, hMax);
+		}
+	}
+
+	/** Gets the number of values recorded. */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/** Gets the sum of the values recorded. */
+	public synchronized long getTotal() {
+		return total;
+	}
+
+	/** Gets the largest value recorded. */
+	public synchronized long getMax() {
+		return max;
+	}
+
+	/**
+	 * Gets an upper bound of the given percentile of the values recorded.
+	 * 
+	 * @param q The percentile, between 0 and 1.
+	 */
+	public synchronized long getPercentile(final double q) {
+		final long rank = (long) Math.ceil(q * count);
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank && seen > 0) return Math.min(upperBound(i), max);
+		}
+		return max;
+	}
+
+	// -- Helper methods --
+
+	private static int bucket(final long value) {
+		if (value < SUB_BUCKETS) return (int) Math.max(value, 0);
+		final int msb = 63 - Long.numberOfLeadingZeros(value);
+		final int sub = (int) (value >>> (msb - 2)) & (SUB_BUCKETS - 1);
+		return msb * SUB_BUCKETS + sub;
+	}
+
+	private static long upperBound(final int bucket) {
+		if (bucket < SUB_BUCKETS) return bucket;
+		final int msb = bucket / SUB_BUCKETS;
+		final long sub = bucket % SUB_BUCKETS;
+		return ((SUB_BUCKETS + sub + 1) << (msb - 2)) - 1;
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link ClassPathConflicts}.
+ */
+public class ClassPathConflictsTest {
+
+	@Test
+	public void testNoDuplicates() {
+		final List<Map.Entry<List<Integer>, List<String>>> groups =
+			ClassPathConflicts.groupDuplicates(contents(//
+				new String[] { "a/A.class", "a/B.class" }, //
+				new String[] { "b/A.class" }));
+		assertTrue(groups.isEmpty());
+	}
+
+	@Test
+	public void testGroupedByOwners() {
+		final List<Map.Entry<List<Integer>, List<String>>> groups =
+			ClassPathConflicts.groupDuplicates(contents(//
+				new String[] { "a/A.class", "a/B.class", "c.txt" }, //
+				new String[] { "b/A.class" }, //
+				new String[] { "a/A.class", "a/B.class", "b/A.class" }, //
+				new String[] { "c.txt" }));
+		assertEquals(3, groups.size());
+
+		// largest group first
+		assertEquals(Arrays.asList(0, 2), groups.get(0).getKey());
+		assertEquals(Arrays.asList("a/A.class", "a/B.class"), sorted(groups.get(
+			0).getValue()));
+
+		// ties ordered by owners
+		assertEquals(Arrays.asList(0, 3), groups.get(1).getKey());
+		assertEquals(Arrays.asList("c.txt"), groups.get(1).getValue());
+		assertEquals(Arrays.asList(1, 2), groups.get(2).getKey());
+		assertEquals(Arrays.asList("b/A.class"), groups.get(2).getValue());
+	}
+
+	@Test
+	public void testOwnersInClassPathOrder() {
+		final List<Map.Entry<List<Integer>, List<String>>> groups =
+			ClassPathConflicts.groupDuplicates(contents(//
+				new String[] { "x" }, //
+				new String[] { "y" }, //
+				new String[] { "y", "x" }, //
+				new String[] { "x" }));
+		assertEquals(2, groups.size());
+		// NB: The first owner is the one whose copy wins.
+		assertEquals(Arrays.asList(0, 2, 3), groups.get(0).getKey());
+		assertEquals(Arrays.asList("x"), groups.get(0).getValue());
+		assertEquals(Arrays.asList(1, 2), groups.get(1).getKey());
+		assertEquals(Arrays.asList("y"), groups.get(1).getValue());
+	}
+
+	// -- Helper methods --
+
+	private static List<String[]> contents(final String[]... elements) {
+		return Arrays.asList(elements);
+	}
+
+	private static List<String> sorted(final List<String> list) {
+		final List<String> copy = new ArrayList<String>(list);
+		Collections.sort(copy);
+		return copy;
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+
+/**
+ * Tests {@link DefaultFlightRecorderService}.
+ */
+public class DefaultFlightRecorderServiceTest {
+
+	private Context context;
+	private FlightRecorderService flightRecorderService;
+	private Path dir;
+
+	@Before
+	public void setUp() throws IOException {
+		context = new Context(FlightRecorderService.class);
+		flightRecorderService = context.service(FlightRecorderService.class);
+		dir = Files.createTempDirectory("flight recorder");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		context.dispose();
+		for (final Path path : Files.newDirectoryStream(dir)) {
+			Files.delete(path);
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	public void testPathWithSpaces() throws IOException {
+		assumeTrue(flightRecorderService.isAvailable());
+		final String name = "test recording";
+		final File dumped = dir.resolve("dumped recording.jfr").toFile();
+		final File stopped = dir.resolve("stopped recording.jfr").toFile();
+		try {
+			flightRecorderService.start(name, "default", null);
+		}
+		catch (final IOException exc) {
+			// NB: This JVM has no Flight Recorder, e.g. Java 8 without it.
+			assumeTrue(exc.getMessage(), false);
+		}
+		try {
+			flightRecorderService.dump(name, dumped);
+		}
+		finally {
+			flightRecorderService.stop(name, stopped);
+		}
+		assertTrue(dumped.isFile());
+		assertTrue(stopped.isFile());
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link StackSampler}.
+ */
+public class StackSamplerTest {
+
+	private final Thread thread = Thread.currentThread();
+
+	@Test
+	public void testRepeatedStackIsCounted() throws IOException {
+		final StackSampler sampler = new StackSampler(true, false);
+		sampler.add(thread, trace("b", "a"));
+		sampler.add(thread, trace("b", "a"));
+		sampler.add(thread, trace("c", "a"));
+		assertEquals(2, sampler.getStackCount());
+		assertEquals(3, sampler.getFrameCount());
+		assertEquals("T.a;T.b 2\nT.a;T.c 1\n", collapsed(sampler));
+	}
+
+	@Test
+	public void testLineNumbersAreIgnored() throws IOException {
+		final StackSampler sampler = new StackSampler(true, false);
+		sampler.add(thread, new StackTraceElement[] { frame("a", 1) });
+		sampler.add(thread, new StackTraceElement[] { frame("a", 2) });
+		assertEquals(1, sampler.getStackCount());
+		assertEquals("T.a 2\n", collapsed(sampler));
+	}
+
+	@Test
+	public void testFrameOrderMatters() throws IOException {
+		final StackSampler sampler = new StackSampler(true, false);
+		sampler.add(thread, trace("b", "a"));
+		sampler.add(thread, trace("a", "b"));
+		sampler.add(thread, trace("a"));
+		assertEquals(3, sampler.getStackCount());
+	}
+
+	@Test
+	public void testPerThread() throws IOException {
+		final StackSampler sampler = new StackSampler(true, true);
+		final Thread other = new Thread("other");
+		sampler.add(thread, trace("a"));
+		sampler.add(thread, trace("a"));
+		sampler.add(other, trace("a"));
+		sampler.add(other, trace("a"));
+		sampler.add(other, trace("a"));
+		// NB: A thread with no stack is still a sample of that thread.
+		sampler.add(other, new StackTraceElement[0]);
+		assertEquals(3, sampler.getStackCount());
+		assertEquals("[other];T.a 3\n[" + thread.getName() + "];T.a 2\n" +
+			"[other] 1\n", collapsed(sampler));
+	}
+
+	@Test
+	public void testEmptyStackIsSkipped() {
+		final StackSampler sampler = new StackSampler(true, false);
+		sampler.add(thread, new StackTraceElement[0]);
+		assertEquals(0, sampler.getStackCount());
+	}
+
+	@Test
+	public void testGrowth() throws IOException {
+		// NB: Enough distinct stacks to grow the table several times.
+		final int n = 5000;
+		final StackSampler sampler = new StackSampler(true, false);
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j <= i % 3; j++) {
+				sampler.add(thread, trace("m" + i, "root"));
+			}
+		}
+		assertEquals(n, sampler.getStackCount());
+		assertEquals(n + 1, sampler.getFrameCount());
+		for (int i = 0; i < n; i++) {
+			sampler.add(thread, trace("m" + i, "root"));
+		}
+		assertEquals(n, sampler.getStackCount());
+
+		long total = 0, expected = 0;
+		for (int i = 0; i < n; i++) {
+			expected += i % 3 + 2;
+		}
+		for (final String line : collapsed(sampler).split("\n")) {
+			final int space = line.lastIndexOf(' ');
+			final int i = Integer.parseInt(line.substring(10, space));
+			final long count = Long.parseLong(line.substring(space + 1));
+			assertEquals(line, i % 3 + 2, count);
+			total += count;
+		}
+		assertEquals(expected, total);
+	}
+
+	@Test
+	public void testLimit() throws IOException {
+		final StackSampler sampler = new StackSampler(true, false);
+		sampler.add(thread, trace("a"));
+		sampler.add(thread, trace("b"));
+		sampler.add(thread, trace("b"));
+		final StringWriter out = new StringWriter();
+		sampler.writeCollapsed(out, 1);
+		assertEquals("T.b 2\n", out.toString());
+	}
+
+	// -- Helper methods --
+
+	/** Creates a stack trace of the given methods of T, innermost first. */
+	private static StackTraceElement[] trace(final String... methods) {
+		final StackTraceElement[] trace = new StackTraceElement[methods.length];
+		for (int i = 0; i < methods.length; i++) {
+			trace[i] = frame(methods[i], i + 1);
+		}
+		return trace;
+	}
+
+	private static StackTraceElement frame(final String method,
+		final int line)
+	{
+		return new StackTraceElement("T", method, "T.java", line);
+	}
+
+	private static String collapsed(final StackSampler sampler)
+		throws IOException
+	{
+		final StringWriter out = new StringWriter();
+		sampler.writeCollapsed(out);
+		return out.toString();
+	}
+
+}
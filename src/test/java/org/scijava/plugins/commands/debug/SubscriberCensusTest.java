@@ -0,0 +1,150 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.event.EventHandler;
+import org.scijava.event.EventService;
+import org.scijava.event.SciJavaEvent;
+import org.scijava.object.event.ObjectsAddedEvent;
+
+/**
+ * Tests {@link SubscriberCensus}.
+ */
+public class SubscriberCensusTest {
+
+	private Context context;
+	private EventService eventService;
+
+	/** Keeps the subscribers reachable, as a leak would. */
+	private final List<Object> subscribers = new ArrayList<Object>();
+
+	@Before
+	public void setUp() {
+		context = new Context(EventService.class);
+		eventService = context.service(EventService.class);
+	}
+
+	@After
+	public void tearDown() {
+		context.dispose();
+	}
+
+	@Test
+	public void testCustomEventTypeIsCounted() {
+		subscribe(new CustomSubscriber());
+		final List<Class<? extends SciJavaEvent>> types =
+			SubscriberCensus.getSubscribedTypes(eventService);
+		assertNotNull(types);
+		assertTrue(types.contains(CustomEvent.class));
+
+		final SubscriberCensus census = SubscriberCensus.take(eventService);
+		assertEquals(1, census.getSubscribers(CustomEvent.class).size());
+	}
+
+	@Test
+	public void testSupertypeSubscribersCountedOnce() {
+		subscribe(new AnySubscriber());
+		final SubscriberCensus census = SubscriberCensus.take(eventService);
+		assertEquals(1, census.getSubscribers(SciJavaEvent.class).size());
+		assertEquals(0, census.getSubscribers(ObjectsAddedEvent.class).size());
+	}
+
+	@Test
+	public void testLeakReportedOnce() {
+		SubscriberCensus census = null;
+		for (int i = 0; i <= SubscriberCensus.GROWTH_THRESHOLD; i++) {
+			subscribe(new AnySubscriber());
+			census = SubscriberCensus.take(eventService);
+		}
+		final List<Class<? extends SciJavaEvent>> leaks =
+			new ArrayList<Class<? extends SciJavaEvent>>();
+		for (final Class<? extends SciJavaEvent> type : census.getEventTypes()) {
+			if (census.isGrowing(type)) leaks.add(type);
+		}
+		assertEquals(1, leaks.size());
+		assertEquals(SciJavaEvent.class, leaks.get(0));
+		assertEquals(SubscriberCensus.GROWTH_THRESHOLD, census.getTotalChange(
+			SciJavaEvent.class));
+	}
+
+	@Test
+	public void testFixedTypes() {
+		subscribe(new AnySubscriber());
+		subscribe(new CustomSubscriber());
+		final SubscriberCensus census = SubscriberCensus.take(eventService,
+			SubscriberCensus.EVENT_TYPES);
+		assertFalse(census.getEventTypes().contains(CustomEvent.class));
+		assertEquals(1, census.getSubscribers(SciJavaEvent.class).size());
+	}
+
+	// -- Helper methods --
+
+	private void subscribe(final Object subscriber) {
+		subscribers.add(subscriber);
+		eventService.subscribe(subscriber);
+	}
+
+	// -- Helper classes --
+
+	public static class CustomEvent extends SciJavaEvent {
+		// NB: An event type which is not in the default list.
+	}
+
+	public static class CustomSubscriber {
+
+		@EventHandler
+		public void onEvent(final CustomEvent evt) {
+			// NB: No action needed.
+		}
+	}
+
+	public static class AnySubscriber {
+
+		@EventHandler
+		public void onEvent(final SciJavaEvent evt) {
+			// NB: No action needed.
+		}
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.debug;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.app.AbstractApp;
+import org.scijava.app.App;
+import org.scijava.app.AppService;
+import org.scijava.plugin.PluginIndex;
+import org.scijava.plugin.PluginInfo;
+import org.scijava.plugins.commands.debug.SystemInformation.Section;
+import org.scijava.service.Service;
+import org.scijava.util.POM;
+import org.xml.sax.SAXException;
+
+/**
+ * Tests {@link SystemSnapshot}.
+ */
+public class SystemSnapshotTest {
+
+	private Path dir;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("snapshot");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		for (final Path path : Files.newDirectoryStream(dir)) {
+			Files.delete(path);
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	public void testDiff() throws IOException {
+		final SystemSnapshot base = snapshot("base", "properties", "a=1",
+			"b=2", "c=3");
+		final SystemSnapshot current = snapshot("current", "properties", "a=1",
+			"b=20", "d=4");
+		final StringWriter out = new StringWriter();
+		assertEquals(3, current.writeDiff(base, out));
+		final String diff = out.toString();
+		assertTrue(diff.contains("1 added, 1 removed, 1 changed"));
+		assertTrue(diff.contains("+ d = 4"));
+		assertTrue(diff.contains("- c = 3"));
+		assertTrue(diff.contains("~ b = 2 -> 20"));
+		assertFalse(diff.contains("a = 1"));
+	}
+
+	@Test
+	public void testUnchangedSectionIsSkipped() throws IOException {
+		final SystemSnapshot base = snapshot("base", "properties", "a=1");
+		final SystemSnapshot current = snapshot("current", "properties", "a=1");
+		final StringWriter out = new StringWriter();
+		assertEquals(0, current.writeDiff(base, out));
+		assertTrue(out.toString().contains("Unchanged: properties"));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		final Context context = new Context();
+		try {
+			final SystemSnapshot snapshot = SystemSnapshot.capture(context,
+				EnumSet.of(Section.PLUGINS, Section.PROPERTIES));
+			final Path path = dir.resolve("saved.properties");
+			snapshot.save(path);
+			final SystemSnapshot loaded = SystemSnapshot.load(path);
+			for (final Section section : snapshot.getSections()) {
+				assertEquals(snapshot.getEntries(section), //
+					loaded.getEntries(section));
+				assertEquals(snapshot.getFingerprint(section), //
+					loaded.getFingerprint(section));
+			}
+			assertEquals(0, loaded.writeDiff(snapshot, new StringWriter()));
+		}
+		finally {
+			context.dispose();
+		}
+	}
+
+	@Test
+	public void testPluginsKeyedByType() {
+		final Context context = new Context();
+		try {
+			final SystemSnapshot snapshot = SystemSnapshot.capture(context,
+				EnumSet.of(Section.PLUGINS));
+			final SortedMap<String, String> plugins =
+				snapshot.getEntries(Section.PLUGINS);
+			// NB: This command is registered as a plugin of type Command.
+			final String key = "org.scijava.command.Command:" +
+				SaveSystemSnapshot.class.getName();
+			assertTrue(plugins.containsKey(key));
+			assertTrue(plugins.get(key).startsWith("priority="));
+		}
+		finally {
+			context.dispose();
+		}
+	}
+
+	@Test
+	public void testFingerprintIsStable() {
+		final Context context = new Context();
+		try {
+			final EnumSet<Section> sections = EnumSet.of(Section.PLUGINS);
+			final SystemSnapshot a = SystemSnapshot.capture(context, sections);
+			final SystemSnapshot b = SystemSnapshot.capture(context, sections);
+			assertEquals(a.getFingerprint(Section.PLUGINS), //
+				b.getFingerprint(Section.PLUGINS));
+		}
+		finally {
+			context.dispose();
+		}
+	}
+
+	@Test
+	public void testUnknownAppVersion() throws IOException {
+		final PluginIndex index = new PluginIndex();
+		final PluginInfo<App> info =
+			new PluginInfo<App>(UnversionedApp.class, App.class);
+		info.setName("Unversioned");
+		index.add(info);
+		final Context context = new Context(Collections
+			.<Class<? extends Service>> singletonList(
+				AppService.class), index);
+		try {
+			final SystemSnapshot snapshot = SystemSnapshot.capture(context,
+				EnumSet.of(Section.APPLICATIONS));
+			assertEquals("(unknown)", snapshot.getEntries(Section.APPLICATIONS)
+				.get("Unversioned"));
+			// NB: Saving used to fail on the null version.
+			snapshot.save(dir.resolve("apps.properties"));
+		}
+		finally {
+			context.dispose();
+		}
+	}
+
+	@Test
+	public void testUnknownLibraryVersion() throws IOException,
+		ParserConfigurationException, SAXException
+	{
+		final TreeMap<String, String> map = new TreeMap<String, String>();
+		SystemSnapshot.captureLibraries(Arrays.asList(library("1.0"),
+			library(null)), map);
+		assertEquals("1.0, (unknown)", map.get("org.example:lib"));
+	}
+
+	// -- Helper methods --
+
+	private static LibraryInfo library(final String version) throws IOException,
+		ParserConfigurationException, SAXException
+	{
+		final String xml = "<project><groupId>org.example</groupId>" +
+			"<artifactId>lib</artifactId>" + (version == null ? "" : "<version>" +
+				version + "</version>") + "</project>";
+		return new LibraryInfo("pom.xml", new POM(new ByteArrayInputStream(xml
+			.getBytes(StandardCharsets.UTF_8))));
+	}
+
+	/**
+	 * Writes the given {@code key=value} entries of one section as a saved
+	 * snapshot, with a stand-in fingerprint derived from the entries, and loads
+	 * it back.
+	 */
+	private SystemSnapshot snapshot(final String name, final String section,
+		final String... entries) throws IOException
+	{
+		final Properties props = new Properties();
+		final StringBuilder sb = new StringBuilder();
+		for (final String entry : entries) {
+			final int eq = entry.indexOf('=');
+			props.setProperty(section + ":" + entry.substring(0, eq),
+				entry.substring(eq + 1));
+			sb.append(entry).append('\n');
+		}
+		props.setProperty("#" + section, Integer.toHexString(sb.toString()
+			.hashCode()));
+		final Path path = dir.resolve(name + ".properties");
+		try (final OutputStream out = Files.newOutputStream(path)) {
+			props.store(out, null);
+		}
+		return SystemSnapshot.load(path);
+	}
+
+	// -- Helper classes --
+
+	/** An application whose version is not known. */
+	public static class UnversionedApp extends AbstractApp {
+
+		@Override
+		public String getGroupId() {
+			return "org.example";
+		}
+
+		@Override
+		public String getArtifactId() {
+			return "unversioned";
+		}
+
+		@Override
+		public String getVersion() {
+			return null;
+		}
+	}
+
+}
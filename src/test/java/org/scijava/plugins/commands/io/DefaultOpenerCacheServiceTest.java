@@ -0,0 +1,185 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.Priority;
+import org.scijava.io.AbstractIOPlugin;
+import org.scijava.io.IOPlugin;
+import org.scijava.io.IOService;
+import org.scijava.io.location.Location;
+import org.scijava.plugin.PluginIndex;
+import org.scijava.plugin.PluginInfo;
+
+/**
+ * Tests {@link DefaultOpenerCacheService}.
+ */
+public class DefaultOpenerCacheServiceTest {
+
+	private Context context;
+	private IOService ioService;
+	private OpenerCacheService openerCacheService;
+	private Path dir;
+
+	@Before
+	public void setUp() throws IOException {
+		final PluginIndex index = new PluginIndex();
+		index.add(info(OmeTiffOpener.class, Priority.HIGH));
+		index.add(info(TiffOpener.class, Priority.LOW));
+		context = new Context(Arrays.asList(IOService.class,
+			OpenerCacheService.class), index);
+		ioService = context.service(IOService.class);
+		openerCacheService = context.service(OpenerCacheService.class);
+		dir = Files.createTempDirectory("openers");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		context.dispose();
+		for (final Path path : Files.newDirectoryStream(dir)) {
+			Files.delete(path);
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	public void testLowerPriorityFirst() throws IOException {
+		final String tif = file("y.tif"), ome = file("x.ome.tif");
+		assertOpener(TiffOpener.class, tif);
+		assertOpener(OmeTiffOpener.class, ome);
+		assertOpener(OmeTiffOpener.class, file("z.ome.tif"));
+		assertOpener(TiffOpener.class, file("w.tif"));
+	}
+
+	@Test
+	public void testHigherPriorityFirst() throws IOException {
+		assertOpener(OmeTiffOpener.class, file("x.ome.tif"));
+		assertOpener(TiffOpener.class, file("y.tif"));
+		assertOpener(OmeTiffOpener.class, file("z.ome.tif"));
+		assertOpener(TiffOpener.class, file("w.tif"));
+	}
+
+	@Test
+	public void testOnlyUnambiguousKindsAreCached() throws IOException {
+		// NB: Only TiffOpener supports .tif files, so they are remembered.
+		assertOpener(TiffOpener.class, file("a.tif"));
+		assertOpener(TiffOpener.class, file("b.tif"));
+		assertEquals(1, openerCacheService.getHits());
+
+		// NB: Both openers support .ome.tif files, so they are not.
+		assertOpener(OmeTiffOpener.class, file("a.ome.tif"));
+		assertOpener(OmeTiffOpener.class, file("b.ome.tif"));
+		assertEquals(1, openerCacheService.getHits());
+		assertEquals(3, openerCacheService.getMisses());
+	}
+
+	// -- Helper methods --
+
+	private void assertOpener(final Class<?> expected, final String source)
+		throws IOException
+	{
+		final IOPlugin<?> opener = openerCacheService.getOpener(source);
+		assertSame(expected, opener.getClass());
+		assertSame(ioService.getOpener(source), opener);
+	}
+
+	private String file(final String name) throws IOException {
+		final Path path = dir.resolve(name);
+		Files.write(path, Collections.singletonList("II*"));
+		return path.toString();
+	}
+
+	private static PluginInfo<IOPlugin<?>> info(
+		final Class<? extends IOPlugin<?>> c, final double priority)
+	{
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		final PluginInfo<IOPlugin<?>> info = new PluginInfo(c, IOPlugin.class);
+		info.setPriority(priority);
+		return info;
+	}
+
+	// -- Helper classes --
+
+	/** Opens files whose names end with the given suffix. */
+	private abstract static class SuffixOpener extends AbstractIOPlugin<File> {
+
+		private final String suffix;
+
+		private SuffixOpener(final String suffix) {
+			this.suffix = suffix;
+		}
+
+		@Override
+		public Class<File> getDataType() {
+			return File.class;
+		}
+
+		@Override
+		public boolean supportsOpen(final Location source) {
+			final String name = source.getName();
+			return name != null && name.endsWith(suffix);
+		}
+
+		@Override
+		public File open(final String source) {
+			return new File(source);
+		}
+	}
+
+	public static class OmeTiffOpener extends SuffixOpener {
+
+		public OmeTiffOpener() {
+			super(".ome.tif");
+		}
+	}
+
+	public static class TiffOpener extends SuffixOpener {
+
+		public TiffOpener() {
+			super(".tif");
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.app.StatusService;
+import org.scijava.io.AbstractIOPlugin;
+import org.scijava.io.IOPlugin;
+import org.scijava.io.IOService;
+import org.scijava.io.location.Location;
+import org.scijava.log.LogService;
+import org.scijava.plugin.PluginIndex;
+import org.scijava.plugin.PluginInfo;
+import org.scijava.thread.ThreadService;
+import org.scijava.ui.UIService;
+
+/**
+ * Tests {@link OpenFile}.
+ */
+public class OpenFileTest {
+
+	private Context context;
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		final PluginIndex index = new PluginIndex();
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		final PluginInfo<IOPlugin<?>> info =
+			new PluginInfo(TextOpener.class, IOPlugin.class);
+		index.add(info);
+		// NB: Without an OpenerCacheService, nor an OpenMetricsService.
+		context = new Context(Arrays.asList(IOService.class, LogService.class,
+			StatusService.class, ThreadService.class, UIService.class), index);
+		file = File.createTempFile("open", ".text");
+	}
+
+	@After
+	public void tearDown() {
+		context.dispose();
+		file.delete();
+	}
+
+	@Test
+	public void testWithoutOptionalServices() {
+		final OpenFile openFile = new OpenFile();
+		context.inject(openFile);
+		openFile.setInputFile(file);
+		openFile.run();
+		assertEquals(file.getAbsolutePath(), openFile.getData());
+	}
+
+	// -- Helper classes --
+
+	/** Opens text files as their path. */
+	public static class TextOpener extends AbstractIOPlugin<String> {
+
+		@Override
+		public Class<String> getDataType() {
+			return String.class;
+		}
+
+		@Override
+		public boolean supportsOpen(final Location source) {
+			final String name = source.getName();
+			return name != null && name.endsWith(".text");
+		}
+
+		@Override
+		public String open(final String source) {
+			return source;
+		}
+	}
+
+}
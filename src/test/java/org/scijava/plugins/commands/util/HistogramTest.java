@@ -0,0 +1,165 @@
+/*
+ * #%L
+ * Core commands for SciJava applications.
+ * %%
+ * Copyright (C) 2010 - 2024 Board of Regents of the University of
+ * Wisconsin-Madison, Broad Institute of MIT and Harvard, and Max Planck
+ * Institute of Molecular Cell Biology and Genetics.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package org.scijava.plugins.commands.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link Histogram}.
+ */
+public class HistogramTest {
+
+	@Test
+	public void testEmpty() {
+		final Histogram h = new Histogram();
+		assertEquals(0, h.getCount());
+		assertEquals(0, h.getTotal());
+		assertEquals(0, h.getMax());
+		assertEquals(0, h.getPercentile(0.5));
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+		final Histogram h = new Histogram();
+		for (int v = 0; v < 4; v++) {
+			h.record(v);
+		}
+		assertEquals(4, h.getCount());
+		assertEquals(6, h.getTotal());
+		assertEquals(3, h.getMax());
+		assertEquals(0, h.getPercentile(0.25));
+		assertEquals(1, h.getPercentile(0.5));
+		assertEquals(3, h.getPercentile(1));
+	}
+
+	@Test
+	public void testBucketBounds() {
+		// NB: 4..7 are exact; from 8 on, buckets are [(4+s)<<k, (5+s)<<k).
+		assertEquals(7, percentileOf(7));
+		assertEquals(9, percentileOf(8));
+		assertEquals(9, percentileOf(9));
+		assertEquals(11, percentileOf(10));
+		assertEquals(15, percentileOf(14));
+		assertEquals(19, percentileOf(16));
+		assertEquals(1279, percentileOf(1024));
+	}
+
+	@Test
+	public void testPercentilesAreUpperBoundsWithin25Percent() {
+		for (long v = 1; v < 1L << 40; v = v * 3 + 1) {
+			final long p = percentileOf(v);
+			assertTrue(v + " -> " + p, p >= v);
+			assertTrue(v + " -> " + p, p <= v * 1.25);
+		}
+	}
+
+	@Test
+	public void testPercentileIsCappedByMax() {
+		final Histogram h = new Histogram();
+		h.record(1000);
+		// NB: The bucket of 1000 extends to 1023, but no value exceeds 1000.
+		assertEquals(1000, h.getPercentile(0.99));
+	}
+
+	@Test
+	public void testPercentileRanks() {
+		final Histogram h = new Histogram();
+		for (int i = 0; i < 99; i++) {
+			h.record(2);
+		}
+		h.record(1000000);
+		assertEquals(2, h.getPercentile(0.5));
+		assertEquals(2, h.getPercentile(0.99));
+		assertEquals(1000000, h.getPercentile(1));
+	}
+
+	@Test
+	public void testAdd() {
+		final Histogram h1 = new Histogram();
+		final Histogram h2 = new Histogram();
+		h1.record(3);
+		h2.record(100);
+		h2.record(2);
+		h1.add(h2);
+		assertEquals(3, h1.getCount());
+		assertEquals(105, h1.getTotal());
+		assertEquals(100, h1.getMax());
+		assertEquals(3, h1.getPercentile(2 / 3.0));
+		// NB: The added histogram is left as it was.
+		assertEquals(2, h2.getCount());
+	}
+
+	@Test(timeout = 10000)
+	public void testConcurrentMutualAdd() throws InterruptedException {
+		final Histogram h1 = new Histogram();
+		final Histogram h2 = new Histogram();
+		h1.record(1);
+		h2.record(1);
+		// NB: Each thread locks the histograms in the opposite order.
+		final Thread t1 = mutualAdder(h1, h2);
+		final Thread t2 = mutualAdder(h2, h1);
+		t1.start();
+		t2.start();
+		// NB: Before the fix, these could deadlock, failing by timeout.
+		t1.join();
+		t2.join();
+	}
+
+	// -- Helper methods --
+
+	private static Thread mutualAdder(final Histogram to, final Histogram from) {
+		final Thread t = new Thread() {
+
+			@Override
+			public void run() {
+				// NB: The counts overflow along the way, which is harmless here.
+				for (int i = 0; i < 200000; i++) {
+					to.add(from);
+				}
+			}
+		};
+		// NB: Should they deadlock, do not keep the test JVM alive.
+		t.setDaemon(true);
+		return t;
+	}
+
+	private static long percentileOf(final long value) {
+		final Histogram h = new Histogram();
+		h.record(value);
+		h.record(Long.MAX_VALUE / 2);
+		return h.getPercentile(0.5);
+	}
+
+}